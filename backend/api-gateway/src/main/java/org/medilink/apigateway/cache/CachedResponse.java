@@ -0,0 +1,53 @@
+package org.medilink.apigateway.cache;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+
+import java.time.Duration;
+
+public final class CachedResponse {
+
+    private final HttpStatusCode status;
+    private final MediaType contentType;
+    private final byte[] body;
+    private final String etag;
+    private final Duration maxAge;
+    private final long storedAtNanos;
+
+    public CachedResponse(HttpStatusCode status, MediaType contentType, byte[] body, String etag, Duration maxAge) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+        this.etag = etag;
+        this.maxAge = maxAge;
+        this.storedAtNanos = System.nanoTime();
+    }
+
+    public HttpStatusCode getStatus() {
+        return status;
+    }
+
+    public MediaType getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public Duration getAge() {
+        return Duration.ofNanos(System.nanoTime() - storedAtNanos);
+    }
+
+    public long getRemainingSeconds() {
+        return Math.max(0, maxAge.minus(getAge()).getSeconds());
+    }
+}
@@ -0,0 +1,90 @@
+package org.medilink.apigateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+public class ResponseCache {
+
+    private static final String KEY_SEPARATOR = "|";
+
+    private final Cache<String, CachedResponse> responses;
+
+    public ResponseCache(@Value("${gateway.response-cache.max-entries:1000}") long maxEntries,
+                         MeterRegistry meterRegistry) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new MaxAgeExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "gateway.response.cache");
+    }
+
+    public static String key(String routeId, String pathAndQuery) {
+        return routeId + KEY_SEPARATOR + pathAndQuery;
+    }
+
+    // Strong validator: a digest of the exact bytes served
+    public static String etag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public CachedResponse get(String key) {
+        return responses.getIfPresent(key);
+    }
+
+    public void put(String key, CachedResponse response) {
+        responses.put(key, response);
+    }
+
+    public void purgeRoute(String routeId) {
+        String prefix = routeId + KEY_SEPARATOR;
+        responses.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void purgeAll() {
+        responses.invalidateAll();
+    }
+
+    public Map<String, Integer> entriesPerRoute() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String key : responses.asMap().keySet()) {
+            counts.merge(key.substring(0, key.indexOf(KEY_SEPARATOR)), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static final class MaxAgeExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+            return response.getMaxAge().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return response.getMaxAge().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.medilink.apigateway.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "responsecache")
+public class ResponseCacheEndpoint {
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheEndpoint(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @ReadOperation
+    public Map<String, Integer> entries() {
+        return responseCache.entriesPerRoute();
+    }
+
+    // DELETE /actuator/responsecache on the management port purges everything, ?routeId=... purges a single route
+    @DeleteOperation
+    public Map<String, Integer> purge(@Nullable String routeId) {
+        if (routeId == null) {
+            responseCache.purgeAll();
+        } else {
+            responseCache.purgeRoute(routeId);
+        }
+        return responseCache.entriesPerRoute();
+    }
+}
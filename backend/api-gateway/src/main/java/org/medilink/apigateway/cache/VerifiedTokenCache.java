@@ -0,0 +1,105 @@
+package org.medilink.apigateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.medilink.apigateway.model.TokenClaims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Cache<String, TokenClaims> verified;
+    private final Cache<String, Boolean> rejected;
+
+    public VerifiedTokenCache(@Value("${auth.validation.cache.max-size:10000}") long maxSize,
+                              @Value("${auth.validation.cache.max-ttl:5m}") Duration maxTtl,
+                              @Value("${auth.validation.cache.negative-max-size:10000}") long negativeMaxSize,
+                              @Value("${auth.validation.cache.negative-ttl:10s}") Duration negativeTtl,
+                              MeterRegistry meterRegistry) {
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ClaimsExpiry(maxTtl))
+                .recordStats()
+                .build();
+        this.rejected = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(negativeTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "gateway.jwt.verified");
+        CaffeineCacheMetrics.monitor(meterRegistry, rejected, "gateway.jwt.rejected");
+    }
+
+    // Keys are digests so raw bearer tokens never sit in the heap as map keys
+    public static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    public TokenClaims getVerified(String key) {
+        return verified.getIfPresent(key);
+    }
+
+    public boolean isRejected(String key) {
+        return rejected.getIfPresent(key) != null;
+    }
+
+    public void putVerified(String key, TokenClaims claims) {
+        if (claims.getExpiresAt() != null && !claims.getExpiresAt().isAfter(Instant.now())) {
+            return;
+        }
+        verified.put(key, claims);
+    }
+
+    public void putRejected(String key) {
+        rejected.put(key, Boolean.TRUE);
+    }
+
+    private static final class ClaimsExpiry implements Expiry<String, TokenClaims> {
+
+        private final long maxTtlNanos;
+
+        private ClaimsExpiry(Duration maxTtl) {
+            this.maxTtlNanos = maxTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, TokenClaims claims, long currentTime) {
+            if (claims.getExpiresAt() == null) {
+                return maxTtlNanos;
+            }
+            long untilExpiry = Duration.between(Instant.now(), claims.getExpiresAt()).toNanos();
+            return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
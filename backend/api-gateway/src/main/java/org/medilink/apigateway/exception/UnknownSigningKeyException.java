@@ -0,0 +1,18 @@
+package org.medilink.apigateway.exception;
+
+import io.jsonwebtoken.JwtException;
+
+// Thrown while verifying a token whose kid is not in the cached JWKS, so the caller can refresh and retry once
+public class UnknownSigningKeyException extends JwtException {
+
+    private final String keyId;
+
+    public UnknownSigningKeyException(String keyId) {
+        super("Unknown signing key: " + keyId);
+        this.keyId = keyId;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+}
@@ -0,0 +1,146 @@
+package org.medilink.apigateway.filter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.medilink.apigateway.ratelimit.AimdConcurrencyLimiter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class AdaptiveConcurrencyGatewayFilterFactory extends AbstractGatewayFilterFactory<AdaptiveConcurrencyGatewayFilterFactory.Config> {
+
+    private static final Set<HttpMethod> READ_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AimdConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "default";
+            AimdConcurrencyLimiter limiter = limiters.computeIfAbsent(routeId, id -> register(id, config));
+
+            if(!limiter.tryAcquire(READ_METHODS.contains(exchange.getRequest().getMethod()))){
+                exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                return exchange.getResponse().setComplete();
+            }
+
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        limiter.release();
+                        long elapsed = System.nanoTime() - start;
+                        if(signal == SignalType.CANCEL){
+                            limiter.onCancel(elapsed);
+                            return;
+                        }
+                        HttpStatusCode status = exchange.getResponse().getStatusCode();
+                        boolean dropped = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                        limiter.onSample(elapsed, dropped);
+                    });
+        };
+    }
+
+    private AimdConcurrencyLimiter register(String routeId, Config config) {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(config.getInitialLimit(), config.getMinLimit(),
+                config.getMaxLimit(), config.getLatencyThreshold(), config.getBackoffRatio(), config.getBackoffWindow(), config.getReadShare());
+
+        Gauge.builder("gateway.concurrency.limit", limiter, AimdConcurrencyLimiter::getLimit)
+                .tag("route", routeId).register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, AimdConcurrencyLimiter::getInFlight)
+                .tag("route", routeId).register(meterRegistry);
+        FunctionCounter.builder("gateway.concurrency.rejected", limiter, AimdConcurrencyLimiter::getRejectedReads)
+                .tags("route", routeId, "kind", "read").register(meterRegistry);
+        FunctionCounter.builder("gateway.concurrency.rejected", limiter, AimdConcurrencyLimiter::getRejectedWrites)
+                .tags("route", routeId, "kind", "write").register(meterRegistry);
+        return limiter;
+    }
+
+    public static class Config {
+
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        private Duration latencyThreshold = Duration.ofMillis(500);
+        private double backoffRatio = 0.9;
+        private Duration backoffWindow = Duration.ofSeconds(1);
+        private double readShare = 0.8;
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public Duration getBackoffWindow() {
+            return backoffWindow;
+        }
+
+        public void setBackoffWindow(Duration backoffWindow) {
+            this.backoffWindow = backoffWindow;
+        }
+
+        public double getReadShare() {
+            return readShare;
+        }
+
+        public void setReadShare(double readShare) {
+            this.readShare = readShare;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.medilink.apigateway.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+// Terminal filter for /api/booking-details/{id}: answers from booking, equipment and payment services in one
+// response. The booking is fetched first so its owner can be checked; the equipment and payment legs then run
+// in parallel. Equipment and payment degrade to null and are listed as unavailable.
+@Component
+public class BookingDetailsGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingDetailsGatewayFilterFactory.class);
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT = new ParameterizedTypeReference<>() {};
+
+    private final WebClient bookingClient;
+    private final WebClient equipmentClient;
+    private final WebClient paymentClient;
+    private final Duration legTimeout;
+    private final ObjectMapper objectMapper;
+
+    public BookingDetailsGatewayFilterFactory(WebClient.Builder webClientBuilder,
+        @Value("${aggregate.booking-service.url}") String bookingServiceUrl,
+        @Value("${aggregate.equipment-service.url}") String equipmentServiceUrl,
+        @Value("${aggregate.payment-service.url}") String paymentServiceUrl,
+        @Value("${aggregate.leg-timeout:2s}") Duration legTimeout,
+        ObjectMapper objectMapper) {
+            this.bookingClient = webClientBuilder.clone().baseUrl(bookingServiceUrl).build();
+            this.equipmentClient = webClientBuilder.clone().baseUrl(equipmentServiceUrl).build();
+            this.paymentClient = webClientBuilder.clone().baseUrl(paymentServiceUrl).build();
+            this.legTimeout = legTimeout;
+            this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public GatewayFilter apply(Object config) {
+        return (exchange, chain) -> {
+            String bookingId = ServerWebExchangeUtils.getUriTemplateVariables(exchange).get("id");
+            String userId = exchange.getRequest().getHeaders().getFirst(JwtValidationGatewayFilterFactory.USER_ID_HEADER);
+
+            Mono<Map<String, Object>> booking = bookingClient.get()
+                    .uri("/bookings/{id}", bookingId)
+                    .headers(headers -> forwardCaller(exchange, headers))
+                    .retrieve()
+                    .bodyToMono(JSON_OBJECT)
+                    .timeout(legTimeout);
+
+            return booking
+                    .flatMap(bookingBody -> {
+                        // booking-service serves any id, so ownership is checked here, before anything else is
+                        // fetched; someone else's booking looks the same as a missing one
+                        if(userId == null || !userId.equals(String.valueOf(bookingBody.get("userId")))){
+                            return complete(exchange, HttpStatus.NOT_FOUND);
+                        }
+
+                        // a booking that has not been paid for yet has no payment, which is not a degraded leg
+                        Mono<Leg> payment = optionalLeg("payment", paymentClient.get()
+                                .uri("/payments/{orderId}", bookingId)
+                                .headers(headers -> forwardCaller(exchange, headers))
+                                .retrieve()
+                                .bodyToMono(JSON_OBJECT), true);
+                        Object equipmentId = bookingBody.get("equipmentId");
+                        Mono<Leg> equipment = equipmentId == null
+                                ? Mono.just(Leg.UNAVAILABLE)
+                                : optionalLeg("equipment", equipmentClient.get()
+                                        .uri("/equipments/{id}", equipmentId)
+                                        .headers(headers -> forwardCaller(exchange, headers))
+                                        .retrieve()
+                                        .bodyToMono(JSON_OBJECT), false);
+
+                        return Mono.zip(equipment, payment).flatMap(legs -> {
+                            Map<String, Object> body = new LinkedHashMap<>();
+                            List<String> unavailable = new ArrayList<>();
+                            body.put("booking", bookingBody);
+                            body.put("equipment", legs.getT1().value);
+                            body.put("payment", legs.getT2().value);
+                            if(!legs.getT1().available){
+                                unavailable.add("equipment");
+                            }
+                            if(!legs.getT2().available){
+                                unavailable.add("payment");
+                            }
+                            body.put("partial", !unavailable.isEmpty());
+                            body.put("unavailable", unavailable);
+                            return writeJson(exchange, HttpStatus.OK, body);
+                        });
+                    })
+                    .onErrorResume(WebClientResponseException.NotFound.class,
+                            e -> complete(exchange, HttpStatus.NOT_FOUND))
+                    .onErrorResume(TimeoutException.class,
+                            e -> complete(exchange, HttpStatus.GATEWAY_TIMEOUT))
+                    .onErrorResume(e -> !exchange.getResponse().isCommitted(), e -> {
+                        logger.error("Booking details aggregation failed for booking {}: {}", bookingId, e.getMessage());
+                        return complete(exchange, HttpStatus.BAD_GATEWAY);
+                    });
+        };
+    }
+
+    // Sub-requests act for the same user and within what is left of the same deadline as the client's request
+    private void forwardCaller(ServerWebExchange exchange, HttpHeaders headers) {
+        String userId = exchange.getRequest().getHeaders().getFirst(JwtValidationGatewayFilterFactory.USER_ID_HEADER);
+        if(userId != null){
+            headers.set(JwtValidationGatewayFilterFactory.USER_ID_HEADER, userId);
+        }
+        long remaining = DeadlineGlobalFilter.remainingMillis(exchange);
+        if(remaining >= 0){
+            headers.set(DeadlineGlobalFilter.REQUEST_TIMEOUT_HEADER, Long.toString(remaining));
+        }
+    }
+
+    // A failed or slow optional leg is reported as unavailable instead of failing the aggregate; with
+    // notFoundIsAbsent a 404 is an answer (no such record) rather than a failure
+    private Mono<Leg> optionalLeg(String name, Mono<Map<String, Object>> call, boolean notFoundIsAbsent) {
+        return call.timeout(legTimeout)
+                .map(Leg::new)
+                .defaultIfEmpty(Leg.UNAVAILABLE)
+                .onErrorResume(e -> {
+                    if(notFoundIsAbsent && e instanceof WebClientResponseException.NotFound){
+                        return Mono.just(Leg.ABSENT);
+                    }
+                    logger.warn("Booking details {} lookup degraded: {}", name, e.getMessage());
+                    return Mono.just(Leg.UNAVAILABLE);
+                });
+    }
+
+    private Mono<Void> writeJson(ServerWebExchange exchange, HttpStatus status, Map<String, Object> body) {
+        byte[] bytes;
+        try{
+            bytes = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e){
+            return Mono.error(e);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(bytes.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+    }
+
+    private Mono<Void> complete(ServerWebExchange exchange, HttpStatus status) {
+        exchange.getResponse().setStatusCode(status);
+        return exchange.getResponse().setComplete();
+    }
+
+    private static final class Leg {
+
+        private static final Leg ABSENT = new Leg(null, true);
+        private static final Leg UNAVAILABLE = new Leg(null, false);
+
+        private final Map<String, Object> value;
+        private final boolean available;
+
+        private Leg(Map<String, Object> value) {
+            this(value, true);
+        }
+
+        private Leg(Map<String, Object> value, boolean available) {
+            this.value = value;
+            this.available = available;
+        }
+    }
+}
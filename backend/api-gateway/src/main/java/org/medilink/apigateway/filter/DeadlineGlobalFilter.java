@@ -0,0 +1,80 @@
+package org.medilink.apigateway.filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+// Gives every request a time budget (gateway.request-timeout, or the route's "request-timeout" metadata in ms)
+// and answers 504 once it is spent, so neither the gateway nor the services keep working on requests the client
+// has given up on. The absolute deadline is kept as an exchange attribute; DeadlinePropagationGlobalFilter and
+// the filters that call services themselves send what is left of it as X-Request-Timeout.
+@Component
+public class DeadlineGlobalFilter implements GlobalFilter, Ordered {
+
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout";
+    public static final String DEADLINE_ATTR = DeadlineGlobalFilter.class.getName() + ".deadline";
+    private static final String ROUTE_TIMEOUT_METADATA = "request-timeout";
+
+    private final Duration defaultTimeout;
+
+    public DeadlineGlobalFilter(@Value("${gateway.request-timeout:10s}") Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Duration timeout = resolveTimeout(exchange);
+        exchange.getAttributes().put(DEADLINE_ATTR, System.nanoTime() + timeout.toNanos());
+
+        // a budget claimed by the client is never passed on; downstream only sees what the gateway computed
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> headers.remove(REQUEST_TIMEOUT_HEADER))
+                .build();
+
+        return chain.filter(exchange.mutate().request(request).build())
+                .timeout(timeout)
+                .onErrorResume(TimeoutException.class, e -> {
+                    if(exchange.getResponse().isCommitted()){
+                        return Mono.error(e);
+                    }
+                    exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+                    return exchange.getResponse().setComplete();
+                });
+    }
+
+    // Milliseconds left of the request's budget (0 once spent), or -1 when no deadline was set
+    public static long remainingMillis(ServerWebExchange exchange) {
+        Long deadline = exchange.getAttribute(DEADLINE_ATTR);
+        if(deadline == null){
+            return -1;
+        }
+        return Math.max(0, Duration.ofNanos(deadline - System.nanoTime()).toMillis());
+    }
+
+    private Duration resolveTimeout(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if(route != null){
+            Object routeTimeout = route.getMetadata().get(ROUTE_TIMEOUT_METADATA);
+            if(routeTimeout != null){
+                return Duration.ofMillis(Long.parseLong(routeTimeout.toString()));
+            }
+        }
+        return defaultTimeout;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
@@ -0,0 +1,40 @@
+package org.medilink.apigateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// Runs just before the downstream call, after rate limiting, JWT validation and any queueing in between, so
+// X-Request-Timeout carries the budget actually left rather than the full one. A request whose budget is
+// already spent is answered 504 without being routed.
+@Component
+public class DeadlinePropagationGlobalFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long remaining = DeadlineGlobalFilter.remainingMillis(exchange);
+        if(remaining < 0){
+            return chain.filter(exchange);
+        }
+        if(remaining == 0){
+            exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+            return exchange.getResponse().setComplete();
+        }
+
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> headers.set(DeadlineGlobalFilter.REQUEST_TIMEOUT_HEADER, Long.toString(remaining)))
+                .build();
+        return chain.filter(exchange.mutate().request(request).build());
+    }
+
+    // ahead of DownstreamTimingGlobalFilter, which should time only the call itself
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 2;
+    }
+}
@@ -0,0 +1,32 @@
+package org.medilink.apigateway.filter;
+
+import org.medilink.apigateway.metrics.RouteMetrics;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// Runs just before NettyRoutingFilter, so it times the downstream call up to the response headers
+@Component
+public class DownstreamTimingGlobalFilter implements GlobalFilter, Ordered {
+
+    private final RouteMetrics routeMetrics;
+
+    public DownstreamTimingGlobalFilter(RouteMetrics routeMetrics) {
+        this.routeMetrics = routeMetrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> routeMetrics.forExchange(exchange).recordDownstream(System.nanoTime() - start));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+}
@@ -0,0 +1,220 @@
+package org.medilink.apigateway.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.medilink.apigateway.hedge.HedgeState;
+import org.medilink.apigateway.metrics.RouteMetrics;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Terminal filter for idempotent GETs: sends the request to the route's instance and, if no response has
+// arrived within the route's observed latency percentile, sends a second attempt to one of the configured
+// extra instances and streams back whichever answers first. Other methods pass straight through to the
+// normal routing. Hedging against the same host would only add load to it, so extra instances are required.
+@Component
+public class HedgeGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgeGatewayFilterFactory.Config> {
+
+    private static final List<String> HOP_BY_HOP_HEADERS = List.of(HttpHeaders.HOST, HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.UPGRADE);
+
+    private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+    private final RouteMetrics routeMetrics;
+    private final Map<String, HedgeState> states = new ConcurrentHashMap<>();
+
+    public HedgeGatewayFilterFactory(WebClient.Builder webClientBuilder, MeterRegistry meterRegistry,
+                                     RouteMetrics routeMetrics) {
+        super(Config.class);
+        this.webClient = webClientBuilder.build();
+        this.meterRegistry = meterRegistry;
+        this.routeMetrics = routeMetrics;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if(config.getInstances().isEmpty()){
+            throw new IllegalArgumentException("Hedge requires at least one extra instance to send the hedged attempt to");
+        }
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            if(route == null || exchange.getRequest().getMethod() != HttpMethod.GET){
+                return chain.filter(exchange);
+            }
+
+            HedgeState state = states.computeIfAbsent(route.getId(), id -> new HedgeState(id, meterRegistry,
+                    config.getDelayPercentile(), config.getMinDelay(), config.getMaxDelay(),
+                    config.getMaxHedgePercent(), config.getBurst()));
+            state.onRequest();
+
+            // rotate the hedge target so extra load is spread over the other instances
+            List<String> instances = config.getInstances();
+            URI hedgeTarget = URI.create(instances.get(ThreadLocalRandom.current().nextInt(instances.size())));
+
+            long start = System.nanoTime();
+            AtomicBoolean decided = new AtomicBoolean();
+            // every primary is timed, including ones that failed or lost to the hedge and were cancelled; those
+            // are censored at the elapsed time, so the percentile isn't skewed towards the primaries that won
+            Mono<ResponseEntity<Flux<DataBuffer>>> primary = firstOnly(send(exchange, route.getUri(), config)
+                    .doFinally(signal -> state.recordPrimary(System.nanoTime() - start)), decided);
+            Mono<ResponseEntity<Flux<DataBuffer>>> hedge = Mono.defer(() -> state.tryHedge()
+                            ? firstOnly(send(exchange, hedgeTarget, config), decided)
+                                    .doOnNext(response -> state.onHedgeWon())
+                            : Mono.<ResponseEntity<Flux<DataBuffer>>>empty())
+                    .delaySubscription(state.hedgeDelay());
+
+            return Mono.firstWithValue(primary, hedge)
+                    .flatMap(response -> {
+                        routeMetrics.forExchange(exchange).recordDownstream(System.nanoTime() - start);
+                        return write(exchange, response);
+                    });
+        };
+    }
+
+    // Only the first attempt to get its headers in is passed on. A loser that still completes has its body
+    // drained and released, otherwise its buffers and pooled connection would leak.
+    private Mono<ResponseEntity<Flux<DataBuffer>>> firstOnly(Mono<ResponseEntity<Flux<DataBuffer>>> attempt,
+                                                             AtomicBoolean decided) {
+        return attempt.filter(response -> {
+            if(decided.compareAndSet(false, true)){
+                return true;
+            }
+            Flux<DataBuffer> body = response.getBody();
+            if(body != null){
+                body.subscribe(DataBufferUtils::release, error -> { });
+            }
+            return false;
+        });
+    }
+
+    // Completes once the status line and headers are in; the body is streamed through by write().
+    // Non-2xx statuses are proxied as they are rather than turned into errors. Each attempt carries the budget
+    // left when it is sent, so the hedge gets less than the primary did.
+    private Mono<ResponseEntity<Flux<DataBuffer>>> send(ServerWebExchange exchange, URI instance, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        long remaining = DeadlineGlobalFilter.remainingMillis(exchange);
+        URI target = UriComponentsBuilder.fromUri(request.getURI())
+                .scheme(instance.getScheme())
+                .host(instance.getHost())
+                .port(instance.getPort())
+                .build(true)
+                .toUri();
+
+        return webClient.get()
+                .uri(target)
+                .headers(headers -> {
+                    headers.addAll(request.getHeaders());
+                    HOP_BY_HOP_HEADERS.forEach(headers::remove);
+                    if(remaining >= 0){
+                        headers.set(DeadlineGlobalFilter.REQUEST_TIMEOUT_HEADER, Long.toString(remaining));
+                    }
+                })
+                .retrieve()
+                .onStatus(status -> true, response -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .timeout(config.getAttemptTimeout());
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, ResponseEntity<Flux<DataBuffer>> downstream) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(downstream.getStatusCode());
+        response.getHeaders().addAll(downstream.getHeaders());
+        HOP_BY_HOP_HEADERS.forEach(response.getHeaders()::remove);
+
+        Flux<DataBuffer> body = downstream.getBody();
+        if(body == null){
+            return response.setComplete();
+        }
+        return response.writeWith(body);
+    }
+
+    public static class Config {
+
+        private double delayPercentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(10);
+        private Duration maxDelay = Duration.ofSeconds(1);
+        private int maxHedgePercent = 10;
+        private int burst = 10;
+        private List<String> instances = new ArrayList<>();
+        // time allowed for each attempt to return its status and headers
+        private Duration attemptTimeout = Duration.ofSeconds(5);
+
+        public double getDelayPercentile() {
+            return delayPercentile;
+        }
+
+        public void setDelayPercentile(double delayPercentile) {
+            this.delayPercentile = delayPercentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public int getMaxHedgePercent() {
+            return maxHedgePercent;
+        }
+
+        public void setMaxHedgePercent(int maxHedgePercent) {
+            this.maxHedgePercent = maxHedgePercent;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public List<String> getInstances() {
+            return instances;
+        }
+
+        public void setInstances(List<String> instances) {
+            this.instances = instances;
+        }
+
+        public Duration getAttemptTimeout() {
+            return attemptTimeout;
+        }
+
+        public void setAttemptTimeout(Duration attemptTimeout) {
+            this.attemptTimeout = attemptTimeout;
+        }
+    }
+}
@@ -1,58 +1,200 @@
 package org.medilink.apigateway.filter;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.medilink.apigateway.cache.VerifiedTokenCache;
+import org.medilink.apigateway.exception.UnknownSigningKeyException;
+import org.medilink.apigateway.jwks.JwksKeyProvider;
+import org.medilink.apigateway.metrics.RouteMetrics;
+import org.medilink.apigateway.model.TokenClaims;
+import org.medilink.apigateway.revocation.RevocationChecker;
+import org.medilink.apigateway.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
 public class JwtValidationGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtValidationGatewayFilterFactory.class);
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String USER_ROLE_HEADER = "X-User-Role";
+
     private final WebClient webClient;
+    private final JwtUtil jwtUtil;
+    private final JwksKeyProvider jwksKeyProvider;
+    private final VerifiedTokenCache tokenCache;
+    private final boolean remoteValidation;
+    private final Map<String, Mono<TokenClaims>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedValidations;
+    private final RouteMetrics routeMetrics;
+    private final RevocationChecker revocationChecker;
 
     public JwtValidationGatewayFilterFactory(WebClient.Builder webClientBuilder,
-        @Value("${auth.service.url}") String authServiceUrl) {
+        @Value("${auth.service.url}") String authServiceUrl,
+        @Value("${auth.validation.remote:false}") boolean remoteValidation,
+        JwtUtil jwtUtil,
+        JwksKeyProvider jwksKeyProvider,
+        VerifiedTokenCache tokenCache,
+        MeterRegistry meterRegistry,
+        RouteMetrics routeMetrics,
+        RevocationChecker revocationChecker) {
             this.webClient = webClientBuilder.baseUrl(authServiceUrl).build();
+            this.remoteValidation = remoteValidation;
+            this.jwtUtil = jwtUtil;
+            this.jwksKeyProvider = jwksKeyProvider;
+            this.tokenCache = tokenCache;
+            this.coalescedValidations = meterRegistry.counter("gateway.jwt.coalesced");
+            this.routeMetrics = routeMetrics;
+            this.revocationChecker = revocationChecker;
+            logger.info("JWT validation mode: {}", remoteValidation ? "remote (auth-service)" : "local");
     }
 
     @Override
     public GatewayFilter apply(Object config) {
         return (exchange, chain) -> {
-            String token = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
-            if(token == null || !token.startsWith("Bearer ")) {
-                exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-                return exchange.getResponse().setComplete();
+            if(authHeader == null || !authHeader.startsWith("Bearer ")) {
+                return unauthorized(exchange);
             }
 
-            return webClient.get()
-                    .uri("/validate")
-                    .header(HttpHeaders.AUTHORIZATION,token)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .flatMap(responseMap -> {
-                        String userId = (String) responseMap.get("userId");
-                        if(userId == null){
-                            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-                            return exchange.getResponse().setComplete();
-                        }
-
-                        ServerHttpRequest mutatedRequest = exchange.getRequest().mutate()
-                                .header("X-User-Id", userId)
-                                .build();
-                        
-                        return chain.filter(exchange.mutate().request(mutatedRequest).build());
+            long start = System.nanoTime();
+            // revocation is checked on every request, cache hits included, so a revoke takes effect immediately
+            return resolveClaims(authHeader.substring(7))
+                    .filterWhen(claims -> revocationChecker.isRevoked(claims).map(revoked -> !revoked))
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .onErrorResume(e -> {
+                        logger.warn("Token validation failed: {}", e.getMessage());
+                        return Mono.just(Optional.empty());
                     })
-                    .onErrorResume( e -> {
-                       exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED); 
-                       return exchange.getResponse().setComplete();
+                    .flatMap(claims -> {
+                        routeMetrics.forExchange(exchange).recordJwtValidation(System.nanoTime() - start);
+                        return claims.isPresent()
+                                ? forward(exchange, chain, claims.get())
+                                : unauthorized(exchange);
                     });
         };
     }
-}
\ No newline at end of file
+
+    // Completes empty when the token is rejected, errors only when validation itself could not run
+    private Mono<TokenClaims> resolveClaims(String token) {
+        String key = VerifiedTokenCache.digest(token);
+
+        TokenClaims cached = tokenCache.getVerified(key);
+        if(cached != null){
+            return Mono.just(cached);
+        }
+        if(tokenCache.isRejected(key)){
+            return Mono.empty();
+        }
+
+        if(!remoteValidation){
+            return cacheOutcome(key, validateLocally(token));
+        }
+
+        // Concurrent requests carrying the same token share one /validate call; the entry is dropped
+        // as soon as it settles so later requests are served from the verified/rejected caches instead.
+        // Only this validation's own entry is removed, never a newer one registered for the same token.
+        AtomicReference<Mono<TokenClaims>> self = new AtomicReference<>();
+        Mono<TokenClaims> validation = cacheOutcome(key, validateRemotely(token))
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(validation);
+        Mono<TokenClaims> shared = inFlight.putIfAbsent(key, validation);
+        if(shared != null){
+            coalescedValidations.increment();
+            return shared;
+        }
+        return validation;
+    }
+
+    private Mono<TokenClaims> cacheOutcome(String key, Mono<TokenClaims> validation) {
+        return validation
+                .doOnNext(claims -> tokenCache.putVerified(key, claims))
+                .switchIfEmpty(Mono.fromRunnable(() -> tokenCache.putRejected(key)));
+    }
+
+    // A kid we have not cached yet is usually a freshly rotated key: refresh the JWKS once and retry
+    private Mono<TokenClaims> validateLocally(String token) {
+        return verifyLocally(token)
+                .onErrorResume(UnknownSigningKeyException.class, e -> jwksKeyProvider.refreshForUnknownKey()
+                        .then(Mono.defer(() -> verifyLocally(token)))
+                        .onErrorResume(UnknownSigningKeyException.class, retryFailure -> Mono.empty()));
+    }
+
+    private Mono<TokenClaims> verifyLocally(String token) {
+        try{
+            Claims claims = jwtUtil.parseClaims(token);
+            if(claims.getSubject() == null){
+                return Mono.empty();
+            }
+            Instant expiresAt = claims.getExpiration() == null ? null : claims.getExpiration().toInstant();
+            return Mono.just(new TokenClaims(claims.getSubject(), claims.get("role", String.class), expiresAt, claims.getId()));
+        } catch (UnknownSigningKeyException e){
+            return Mono.error(e);
+        } catch (JwtException e){
+            return Mono.empty();
+        }
+    }
+
+    private Mono<TokenClaims> validateRemotely(String token) {
+        return webClient.get()
+                .uri("/validate")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .flatMap(responseMap -> {
+                    String userId = (String) responseMap.get("userId");
+                    if(userId == null){
+                        return Mono.<TokenClaims>empty();
+                    }
+                    Object exp = responseMap.get("exp");
+                    Instant expiresAt = exp instanceof Number ? Instant.ofEpochSecond(((Number) exp).longValue()) : null;
+                    return Mono.just(new TokenClaims(userId, (String) responseMap.get("role"), expiresAt,
+                            (String) responseMap.get("jti")));
+                })
+                .onErrorResume(WebClientResponseException.Unauthorized.class, e -> Mono.empty());
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, TokenClaims claims) {
+        ServerHttpRequest mutatedRequest = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.set(USER_ID_HEADER, claims.getUserId());
+                    if(claims.getRole() != null){
+                        headers.set(USER_ROLE_HEADER, claims.getRole());
+                    } else {
+                        headers.remove(USER_ROLE_HEADER);
+                    }
+                })
+                .build();
+
+        return chain.filter(exchange.mutate().request(mutatedRequest).build());
+    }
+
+    private Mono<Void> unauthorized(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        return exchange.getResponse().setComplete();
+    }
+}
@@ -0,0 +1,115 @@
+package org.medilink.apigateway.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.medilink.apigateway.ratelimit.TokenBucketRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<RateLimitGatewayFilterFactory.Config> {
+
+    private final TokenBucketRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final boolean trustForwardedFor;
+
+    public RateLimitGatewayFilterFactory(TokenBucketRateLimiter rateLimiter, MeterRegistry meterRegistry,
+                                         @Value("${gateway.rate-limit.trust-forwarded-for:true}") boolean trustForwardedFor) {
+        super(Config.class);
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("replenishRate", "burstCapacity", "keyBy");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "default";
+
+            String key = routeId + ":" + resolveKey(exchange.getRequest(), config.getKeyBy());
+            long waitNanos = rateLimiter.tryAcquire(key, config.getReplenishRate(), config.getBurstCapacity());
+            if(waitNanos == 0){
+                return chain.filter(exchange);
+            }
+
+            meterRegistry.counter("gateway.ratelimit.rejected", "route", routeId).increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return exchange.getResponse().setComplete();
+        };
+    }
+
+    // "user" relies on JwtValidation having run earlier in the route's filter list
+    private String resolveKey(ServerHttpRequest request, KeyBy keyBy) {
+        if(keyBy == KeyBy.USER){
+            String userId = request.getHeaders().getFirst(JwtValidationGatewayFilterFactory.USER_ID_HEADER);
+            if(userId != null){
+                return "user:" + userId;
+            }
+        }
+        // only the last hop was added by our load balancer; everything before it is whatever the client sent
+        String forwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+        if(trustForwardedFor && forwardedFor != null && !forwardedFor.isBlank()){
+            String[] hops = forwardedFor.split(",");
+            return "ip:" + hops[hops.length - 1].trim();
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if(remoteAddress != null && remoteAddress.getAddress() != null){
+            return "ip:" + remoteAddress.getAddress().getHostAddress();
+        }
+        return "ip:unknown";
+    }
+
+    public enum KeyBy {
+        USER,
+        IP
+    }
+
+    public static class Config {
+
+        private double replenishRate = 10;
+        private int burstCapacity = 20;
+        private KeyBy keyBy = KeyBy.USER;
+
+        public double getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public KeyBy getKeyBy() {
+            return keyBy;
+        }
+
+        public void setKeyBy(KeyBy keyBy) {
+            this.keyBy = keyBy;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.medilink.apigateway.filter;
+
+import org.medilink.apigateway.cache.CachedResponse;
+import org.medilink.apigateway.cache.ResponseCache;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private static final Set<HttpMethod> WRITE_METHODS = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCache responseCache) {
+        super(Config.class);
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("maxAge");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "default";
+
+            // Any successful write through the route invalidates what we have cached for it
+            if(WRITE_METHODS.contains(request.getMethod())){
+                return chain.filter(exchange).then(Mono.fromRunnable(() -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    if(status != null && status.is2xxSuccessful()){
+                        responseCache.purgeRoute(routeId);
+                    }
+                }));
+            }
+            if(request.getMethod() != HttpMethod.GET){
+                return chain.filter(exchange);
+            }
+
+            String key = ResponseCache.key(routeId, request.getURI().getRawPath()
+                    + (request.getURI().getRawQuery() != null ? "?" + request.getURI().getRawQuery() : ""));
+            List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+
+            CachedResponse cached = responseCache.get(key);
+            if(cached != null){
+                exchange.getResponse().setStatusCode(cached.getStatus());
+                if(cached.getContentType() != null){
+                    exchange.getResponse().getHeaders().setContentType(cached.getContentType());
+                }
+                exchange.getResponse().getHeaders().set(HttpHeaders.AGE, Long.toString(cached.getAge().getSeconds()));
+                return writeCached(exchange.getResponse(), cached, ifNoneMatch);
+            }
+
+            ServerHttpResponse original = exchange.getResponse();
+            ServerHttpResponseDecorator caching = new ServerHttpResponseDecorator(original) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    // upstreams opt out of the cache for answers that must be fresh, e.g. availability
+                    if(getStatusCode() == null || getStatusCode().value() != HttpStatus.OK.value()
+                            || isNoStore(getHeaders())){
+                        return super.writeWith(body);
+                    }
+                    return DataBufferUtils.join(body)
+                            .map(joined -> {
+                                byte[] bytes = new byte[joined.readableByteCount()];
+                                joined.read(bytes);
+                                DataBufferUtils.release(joined);
+                                return bytes;
+                            })
+                            .defaultIfEmpty(new byte[0])
+                            .flatMap(bytes -> {
+                                CachedResponse fresh = new CachedResponse(getStatusCode(), getHeaders().getContentType(),
+                                        bytes, ResponseCache.etag(bytes), config.getMaxAge());
+                                responseCache.put(key, fresh);
+                                return writeCached(getDelegate(), fresh, ifNoneMatch);
+                            });
+                }
+            };
+
+            return chain.filter(exchange.mutate().response(caching).build());
+        };
+    }
+
+    private static boolean isNoStore(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return cacheControl != null && (cacheControl.contains("no-store") || cacheControl.contains("private"));
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached, List<String> ifNoneMatch) {
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.getEtag());
+        headers.setCacheControl("max-age=" + cached.getRemainingSeconds());
+
+        if(ifNoneMatch.contains(cached.getEtag()) || ifNoneMatch.contains("*")){
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            return response.setComplete();
+        }
+
+        headers.setContentLength(cached.getBody().length);
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    public static class Config {
+
+        private Duration maxAge = Duration.ofSeconds(30);
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+}
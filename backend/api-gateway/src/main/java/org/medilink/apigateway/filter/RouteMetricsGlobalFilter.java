@@ -0,0 +1,33 @@
+package org.medilink.apigateway.filter;
+
+import org.medilink.apigateway.metrics.RouteMetrics;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// Outermost filter: end-to-end latency and status class per route, including gateway filters
+@Component
+public class RouteMetricsGlobalFilter implements GlobalFilter, Ordered {
+
+    private final RouteMetrics routeMetrics;
+
+    public RouteMetricsGlobalFilter(RouteMetrics routeMetrics) {
+        this.routeMetrics = routeMetrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> routeMetrics.forExchange(exchange)
+                        .recordTotal(System.nanoTime() - start, exchange.getResponse().getStatusCode()));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,95 @@
+package org.medilink.apigateway.hedge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-route hedging state: the observed latency percentile that decides when to hedge, and a budget that
+// caps hedges to a share of traffic. Each request deposits maxHedgePercent credits and a hedge costs 100,
+// so hedges can never exceed that percentage of requests, with a small burst allowance on top.
+public class HedgeState {
+
+    private static final long HEDGE_COST = 100;
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Timer latency;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final double delayPercentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final long creditPerRequest;
+    private final long maxCredit;
+
+    private final AtomicLong credit = new AtomicLong();
+    private volatile long delayNanos;
+    private volatile long lastRefreshNanos = System.nanoTime();
+
+    public HedgeState(String routeId, MeterRegistry meterRegistry, double delayPercentile, Duration minDelay,
+                      Duration maxDelay, int maxHedgePercent, int burst) {
+        this.delayPercentile = delayPercentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.creditPerRequest = maxHedgePercent;
+        this.maxCredit = HEDGE_COST * Math.max(burst, 1);
+        this.delayNanos = maxDelayNanos;
+        this.latency = Timer.builder("gateway.hedge.primary.latency")
+                .tag("route", routeId)
+                .publishPercentiles(delayPercentile)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.hedgesSent = Counter.builder("gateway.hedge.sent").tag("route", routeId).register(meterRegistry);
+        this.hedgesWon = Counter.builder("gateway.hedge.won").tag("route", routeId).register(meterRegistry);
+    }
+
+    public void onRequest() {
+        long current;
+        do {
+            current = credit.get();
+            if (current >= maxCredit) {
+                return;
+            }
+        } while (!credit.compareAndSet(current, Math.min(maxCredit, current + creditPerRequest)));
+    }
+
+    public boolean tryHedge() {
+        long current;
+        do {
+            current = credit.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+        } while (!credit.compareAndSet(current, current - HEDGE_COST));
+        hedgesSent.increment();
+        return true;
+    }
+
+    public void onHedgeWon() {
+        hedgesWon.increment();
+    }
+
+    // Called for every primary attempt; for one cancelled or failed before answering this is a lower bound
+    public void recordPrimary(long nanos) {
+        latency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // The percentile snapshot is recomputed at most once a second rather than on every request
+    public Duration hedgeDelay() {
+        long now = System.nanoTime();
+        if (now - lastRefreshNanos > REFRESH_INTERVAL_NANOS) {
+            lastRefreshNanos = now;
+            for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+                if (value.percentile() == delayPercentile && value.value() > 0) {
+                    long observed = (long) value.value(TimeUnit.NANOSECONDS);
+                    delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, observed));
+                }
+            }
+        }
+        return Duration.ofNanos(delayNanos);
+    }
+}
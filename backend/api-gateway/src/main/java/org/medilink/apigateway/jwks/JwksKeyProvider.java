@@ -0,0 +1,113 @@
+package org.medilink.apigateway.jwks;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Local copy of auth-service's JWKS. Refreshed in the background so token verification never waits on
+// auth-service; a kid we have not seen yet triggers an early refresh, throttled to min-refresh-interval.
+@Component
+public class JwksKeyProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeyProvider.class);
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+
+    private final WebClient webClient;
+    private final Duration refreshInterval;
+    private final long minRefreshIntervalNanos;
+    private final AtomicReference<Mono<Void>> inFlight = new AtomicReference<>();
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long lastRefreshNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+    private Disposable scheduledRefresh;
+
+    public JwksKeyProvider(WebClient.Builder webClientBuilder,
+                           @Value("${auth.service.url}") String authServiceUrl,
+                           @Value("${jwt.jwks.refresh-interval:5m}") Duration refreshInterval,
+                           @Value("${jwt.jwks.min-refresh-interval:30s}") Duration minRefreshInterval) {
+        this.webClient = webClientBuilder.clone().baseUrl(authServiceUrl).build();
+        this.refreshInterval = refreshInterval;
+        this.minRefreshIntervalNanos = minRefreshInterval.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduledRefresh = Flux.interval(Duration.ZERO, refreshInterval)
+                .concatMap(tick -> refresh())
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if(scheduledRefresh != null){
+            scheduledRefresh.dispose();
+        }
+    }
+
+    public PublicKey find(String kid) {
+        return keys.get(kid);
+    }
+
+    // Completes once a refresh for an unknown kid has finished, or immediately if one ran too recently
+    public Mono<Void> refreshForUnknownKey() {
+        if(System.nanoTime() - lastRefreshNanos < minRefreshIntervalNanos){
+            return Mono.empty();
+        }
+        return refresh();
+    }
+
+    private Mono<Void> refresh() {
+        Mono<Void> fetch = webClient.get()
+                .uri("/.well-known/jwks.json")
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(FETCH_TIMEOUT)
+                .doOnNext(this::update)
+                .doOnError(e -> logger.warn("JWKS refresh failed, keeping {} cached keys: {}", keys.size(), e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> {
+                    lastRefreshNanos = System.nanoTime();
+                    inFlight.set(null);
+                })
+                .then()
+                .cache();
+
+        // concurrent callers share one fetch
+        if(inFlight.compareAndSet(null, fetch)){
+            return fetch;
+        }
+        Mono<Void> shared = inFlight.get();
+        return shared != null ? shared : Mono.empty();
+    }
+
+    private void update(String json) {
+        JwkSet jwkSet = Jwks.setParser().build().parse(json);
+        Map<String, PublicKey> fresh = new HashMap<>();
+        for(Jwk<?> jwk : jwkSet.getKeys()){
+            if(jwk instanceof PublicJwk<?> publicJwk && jwk.getId() != null){
+                fresh.put(jwk.getId(), publicJwk.toKey());
+            }
+        }
+        if(!fresh.keySet().equals(keys.keySet())){
+            logger.info("JWKS updated: {} signing keys", fresh.size());
+        }
+        keys = Map.copyOf(fresh);
+    }
+}
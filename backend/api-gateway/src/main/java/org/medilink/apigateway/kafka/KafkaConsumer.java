@@ -0,0 +1,36 @@
+package org.medilink.apigateway.kafka;
+
+import auth.events.RevocationFilterEvent;
+import org.medilink.apigateway.revocation.RevocationBloomFilter;
+import org.medilink.apigateway.revocation.RevocationChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+@Service
+public class KafkaConsumer {
+    private static final Logger logger = LoggerFactory.getLogger(KafkaConsumer.class);
+    private final RevocationChecker revocationChecker;
+
+    public KafkaConsumer(RevocationChecker revocationChecker) {
+        this.revocationChecker = revocationChecker;
+    }
+
+    // Every gateway instance needs every filter, so each gets its own group and replays the compacted topic on start
+    @KafkaListener(topics = "token-revocations",
+            groupId = "#{'api-gateway-' + T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=earliest")
+    public void consumeRevocationFilter(byte[] event){
+        try {
+            RevocationFilterEvent filterEvent = RevocationFilterEvent.parseFrom(event);
+            revocationChecker.updateFilter(new RevocationBloomFilter(filterEvent.getBits().toByteArray(),
+                    filterEvent.getBitCount(), filterEvent.getHashCount()));
+            logger.info("Revocation filter updated: {} revoked tokens, {} bits", filterEvent.getEntryCount(),
+                    filterEvent.getBitCount());
+        } catch (Exception e) {
+            // keep the previous filter rather than failing open or blocking the partition
+            logger.error("Error processing revocation filter event", e);
+        }
+    }
+}
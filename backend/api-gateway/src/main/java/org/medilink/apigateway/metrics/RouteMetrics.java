@@ -0,0 +1,95 @@
+package org.medilink.apigateway.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Meters are created once per route and handed out from a map, so the per-request path is a map
+// lookup plus Timer.record(long, TimeUnit), which writes into preallocated histogram buckets
+@Component
+public class RouteMetrics {
+
+    private static final String UNKNOWN_ROUTE = "unknown";
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final MeterRegistry meterRegistry;
+    private final Duration maxExpectedLatency;
+    private final Map<String, RouteMeters> meters = new ConcurrentHashMap<>();
+
+    public RouteMetrics(MeterRegistry meterRegistry,
+                        @Value("${gateway.metrics.max-expected-latency:30s}") Duration maxExpectedLatency) {
+        this.meterRegistry = meterRegistry;
+        this.maxExpectedLatency = maxExpectedLatency;
+    }
+
+    public RouteMeters forExchange(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return forRoute(route != null ? route.getId() : UNKNOWN_ROUTE);
+    }
+
+    public RouteMeters forRoute(String routeId) {
+        RouteMeters routeMeters = meters.get(routeId);
+        if (routeMeters == null) {
+            routeMeters = meters.computeIfAbsent(routeId, RouteMeters::new);
+        }
+        return routeMeters;
+    }
+
+    public final class RouteMeters {
+
+        private final Timer total;
+        private final Timer jwtValidation;
+        private final Timer downstream;
+        private final Counter[] statusClasses = new Counter[5];
+
+        private RouteMeters(String routeId) {
+            this.total = timer("gateway.route.latency", routeId);
+            this.jwtValidation = timer("gateway.route.jwt.latency", routeId);
+            this.downstream = timer("gateway.route.downstream.latency", routeId);
+            for (int i = 0; i < statusClasses.length; i++) {
+                statusClasses[i] = Counter.builder("gateway.route.responses")
+                        .tags("route", routeId, "status", (i + 1) + "xx")
+                        .register(meterRegistry);
+            }
+        }
+
+        private Timer timer(String name, String routeId) {
+            return Timer.builder(name)
+                    .tag("route", routeId)
+                    .publishPercentiles(PERCENTILES)
+                    .percentilePrecision(2)
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(maxExpectedLatency)
+                    .register(meterRegistry);
+        }
+
+        public void recordTotal(long nanos, HttpStatusCode status) {
+            total.record(nanos, TimeUnit.NANOSECONDS);
+            if (status != null) {
+                int statusClass = status.value() / 100;
+                if (statusClass >= 1 && statusClass <= 5) {
+                    statusClasses[statusClass - 1].increment();
+                }
+            }
+        }
+
+        public void recordJwtValidation(long nanos) {
+            jwtValidation.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordDownstream(long nanos) {
+            downstream.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.medilink.apigateway.model;
+
+import java.time.Instant;
+
+public final class TokenClaims {
+
+    private final String userId;
+    private final String role;
+    private final Instant expiresAt;
+    private final String tokenId;
+
+    public TokenClaims(String userId, String role, Instant expiresAt, String tokenId) {
+        this.userId = userId;
+        this.role = role;
+        this.expiresAt = expiresAt;
+        this.tokenId = tokenId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+}
@@ -0,0 +1,102 @@
+package org.medilink.apigateway.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Additive-increase / multiplicative-decrease limit on in-flight requests for one route. A sample slower
+// than the latency threshold, or a failed call, shrinks the limit by the backoff ratio, at most once per backoff
+// window so a single burst of slow responses doesn't collapse it to the minimum; a fast sample taken while the
+// route is at least half utilised grows it by one. Reads may only use readShare of the limit so they are shed
+// before writes once the downstream starts to back up.
+public class AimdConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final long backoffWindowNanos;
+    private final double readShare;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejectedReads = new AtomicLong();
+    private final AtomicLong rejectedWrites = new AtomicLong();
+    private volatile double limit;
+    private long lastBackoffNanos;
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold,
+                                  double backoffRatio, Duration backoffWindow, double readShare) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.backoffWindowNanos = backoffWindow.toNanos();
+        this.lastBackoffNanos = System.nanoTime() - backoffWindowNanos;
+        this.readShare = readShare;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public boolean tryAcquire(boolean read) {
+        int allowed = (int) Math.max(1, read ? limit * readShare : limit);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                (read ? rejectedReads : rejectedWrites).incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void onSample(long latencyNanos, boolean dropped) {
+        int currentInFlight = inFlight.get();
+        synchronized (this) {
+            if (dropped || latencyNanos > latencyThresholdNanos) {
+                backOff();
+            } else if (currentInFlight * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    // A cancelled call has no status. Past the latency threshold it is treated as an overload sample (the
+    // gateway's deadline is enforced by cancelling); a quick one is most likely the client going away.
+    public void onCancel(long latencyNanos) {
+        if (latencyNanos > latencyThresholdNanos) {
+            synchronized (this) {
+                backOff();
+            }
+        }
+    }
+
+    private void backOff() {
+        long now = System.nanoTime();
+        if (now - lastBackoffNanos < backoffWindowNanos) {
+            return;
+        }
+        lastBackoffNanos = now;
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedReads() {
+        return rejectedReads.get();
+    }
+
+    public long getRejectedWrites() {
+        return rejectedWrites.get();
+    }
+}
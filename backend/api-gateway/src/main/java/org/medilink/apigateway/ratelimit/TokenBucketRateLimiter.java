@@ -0,0 +1,47 @@
+package org.medilink.apigateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket expressed as GCRA: each key holds a single "theoretical arrival time" in an AtomicLong,
+// so admitting a request is one CAS with no locks. Buckets live in a bounded Caffeine map (striped
+// internally) and are dropped once a client has been idle for longer than the idle timeout.
+@Component
+public class TokenBucketRateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(@Value("${gateway.rate-limit.max-keys:100000}") long maxKeys,
+                                  @Value("${gateway.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    // Returns 0 when the request is admitted, otherwise the nanoseconds until a token is available
+    public long tryAcquire(String key, double replenishRate, int burstCapacity) {
+        long emissionInterval = (long) (TimeUnit.SECONDS.toNanos(1) / replenishRate);
+        long tolerance = emissionInterval * (Math.max(burstCapacity, 1) - 1);
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long arrival = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long wait = arrival - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, arrival + emissionInterval)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.medilink.apigateway.revocation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// Read-only view of the Bloom filter auth-service publishes; hashing and bit layout mirror auth-service's
+// BloomFilter and must change together with it
+public final class RevocationBloomFilter {
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public RevocationBloomFilter(byte[] bits, long bitCount, int hashCount) {
+        if(bitCount <= 0 || hashCount <= 0 || bits.length * 8L < bitCount){
+            throw new IllegalArgumentException("Malformed revocation filter");
+        }
+        this.words = new long[bits.length / 8];
+        ByteBuffer.wrap(bits).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(words);
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = fnv1a64(value);
+        long h2 = mix64(h1) | 1;
+        for(int i = 0; i < hashCount; i++){
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if((words[(int) (bit >>> 6)] & (1L << bit)) == 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long fnv1a64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for(byte b : value.getBytes(StandardCharsets.UTF_8)){
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
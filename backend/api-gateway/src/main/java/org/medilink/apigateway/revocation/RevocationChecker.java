@@ -0,0 +1,83 @@
+package org.medilink.apigateway.revocation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.medilink.apigateway.model.TokenClaims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Revocation check for tokens the gateway has already verified. The Bloom filter answers "not revoked" for
+// almost every token without leaving the process; only filter hits are confirmed with auth-service, and those
+// answers are cached. If auth-service cannot confirm a hit the token is treated as revoked.
+@Component
+public class RevocationChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationChecker.class);
+
+    private final WebClient webClient;
+    private final Duration lookupTimeout;
+    private final Cache<String, Boolean> confirmed;
+    private final Counter filterHits;
+    private final Counter falsePositives;
+
+    private volatile RevocationBloomFilter filter;
+
+    public RevocationChecker(WebClient.Builder webClientBuilder,
+                             @Value("${auth.service.url}") String authServiceUrl,
+                             @Value("${auth.revocation.lookup-timeout:2s}") Duration lookupTimeout,
+                             @Value("${auth.revocation.confirmed-ttl:1m}") Duration confirmedTtl,
+                             MeterRegistry meterRegistry) {
+        this.webClient = webClientBuilder.clone().baseUrl(authServiceUrl).build();
+        this.lookupTimeout = lookupTimeout;
+        this.confirmed = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(confirmedTtl)
+                .build();
+        this.filterHits = meterRegistry.counter("gateway.jwt.revocation.filter.hits");
+        this.falsePositives = meterRegistry.counter("gateway.jwt.revocation.false.positives");
+    }
+
+    public void updateFilter(RevocationBloomFilter filter) {
+        this.filter = filter;
+        // a new filter means revocations changed; earlier "not revoked" answers may be stale
+        confirmed.invalidateAll();
+    }
+
+    public Mono<Boolean> isRevoked(TokenClaims claims) {
+        RevocationBloomFilter current = filter;
+        if(current == null || claims.getTokenId() == null || !current.mightContain(claims.getTokenId())){
+            return Mono.just(false);
+        }
+        filterHits.increment();
+
+        Boolean known = confirmed.getIfPresent(claims.getTokenId());
+        if(known != null){
+            return Mono.just(known);
+        }
+        return webClient.get()
+                .uri("/revocations/{tokenId}", claims.getTokenId())
+                .retrieve()
+                .bodyToMono(Map.class)
+                .timeout(lookupTimeout)
+                .map(body -> Boolean.TRUE.equals(body.get("revoked")))
+                .doOnNext(revoked -> {
+                    confirmed.put(claims.getTokenId(), revoked);
+                    if(!revoked){
+                        falsePositives.increment();
+                    }
+                })
+                .onErrorResume(e -> {
+                    logger.warn("Could not confirm revocation of token {}, rejecting it: {}", claims.getTokenId(), e.getMessage());
+                    return Mono.just(true);
+                });
+    }
+}
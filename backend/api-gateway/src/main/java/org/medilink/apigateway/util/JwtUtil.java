@@ -0,0 +1,62 @@
+package org.medilink.apigateway.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Keys;
+import org.medilink.apigateway.exception.UnknownSigningKeyException;
+import org.medilink.apigateway.jwks.JwksKeyProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.Base64;
+
+@Component
+public class JwtUtil {
+
+    // JwtParser is immutable and thread-safe, so one instance serves every event-loop thread
+    private final JwtParser parser;
+
+    public JwtUtil(JwksKeyProvider jwksKeyProvider, @Value("${jwt.secret:}") String legacySecret,
+                   @Value("${jwt.legacy-accept-until:}") String legacyAcceptUntil) {
+        // tokens issued before the move to RS256 carry no kid; they are accepted while a secret is configured,
+        // and only until the cutoff
+        if(!legacySecret.isBlank() && legacyAcceptUntil.isBlank()){
+            throw new IllegalStateException("jwt.secret is set without jwt.legacy-accept-until");
+        }
+        SecretKey legacyKey = legacySecret.isBlank() ? null : Keys.hmacShaKeyFor(Base64.getDecoder()
+                .decode(legacySecret.getBytes(StandardCharsets.UTF_8)));
+        Instant legacyCutoff = legacyAcceptUntil.isBlank() ? Instant.MIN : Instant.parse(legacyAcceptUntil);
+        this.parser = Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                if(header.getKeyId() == null){
+                    return Instant.now().isBefore(legacyCutoff) ? legacyKey : null;
+                }
+                PublicKey key = jwksKeyProvider.find(header.getKeyId());
+                if(key == null){
+                    throw new UnknownSigningKeyException(header.getKeyId());
+                }
+                return key;
+            }
+        }).build();
+    }
+
+    public Claims parseClaims(String token) {
+        try {
+            return parser.parseSignedClaims(token).getPayload();
+        } catch (UnknownSigningKeyException e) {
+            throw e;
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new JwtException("Invalid JWT token", e);
+        }
+    }
+}
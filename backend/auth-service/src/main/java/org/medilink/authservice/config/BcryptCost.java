@@ -0,0 +1,78 @@
+package org.medilink.authservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+// Work factor new hashes are produced with. By default it is pinned by auth.hashing.bcrypt.cost so every
+// instance agrees on it. With auth.hashing.bcrypt.calibrate=true startup instead measures this machine and uses
+// the highest cost that fits auth.hashing.bcrypt.latency-budget; only enable it where all instances run on the
+// same hardware, otherwise they will keep rehashing each other's hashes.
+@Component
+public class BcryptCost {
+
+    private static final Logger logger = LoggerFactory.getLogger(BcryptCost.class);
+    private static final int CALIBRATION_COST = 10;
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private final int target;
+
+    public BcryptCost(@Value("${auth.hashing.bcrypt.cost:12}") int configuredCost,
+                      @Value("${auth.hashing.bcrypt.calibrate:false}") boolean calibrate,
+                      @Value("${auth.hashing.bcrypt.latency-budget:250ms}") Duration latencyBudget,
+                      @Value("${auth.hashing.bcrypt.min-cost:10}") int minCost,
+                      @Value("${auth.hashing.bcrypt.max-cost:16}") int maxCost) {
+        if(configuredCost < 4 || configuredCost > 31){
+            throw new IllegalStateException("auth.hashing.bcrypt.cost must be between 4 and 31");
+        }
+        if(calibrate){
+            this.target = calibrate(latencyBudget, minCost, maxCost);
+            logger.info("BCrypt cost calibrated to {}", target);
+        } else {
+            this.target = configuredCost;
+            logger.info("BCrypt cost pinned to {}", target);
+        }
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    // Cost is the two digits after the version prefix, e.g. $2a$12$...; -1 if the hash is not BCrypt
+    public static int costOf(String hash) {
+        if(hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$'){
+            return -1;
+        }
+        try{
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch(NumberFormatException e){
+            return -1;
+        }
+    }
+
+    private static int calibrate(Duration latencyBudget, int minCost, int maxCost) {
+        // each cost step doubles the work, so one measurement at a cheap cost predicts the rest
+        BCrypt.hashpw("calibration", BCrypt.gensalt(CALIBRATION_COST));
+        long[] samples = new long[CALIBRATION_ROUNDS];
+        for(int i = 0; i < CALIBRATION_ROUNDS; i++){
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", BCrypt.gensalt(CALIBRATION_COST));
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        long baseNanos = samples[CALIBRATION_ROUNDS / 2];
+
+        int cost = minCost;
+        while(cost < maxCost && baseNanos * (1L << (cost + 1 - CALIBRATION_COST)) <= latencyBudget.toNanos()){
+            cost++;
+        }
+        logger.info("BCrypt calibration picked cost {} (cost {} took {} ms, budget {} ms)", cost, CALIBRATION_COST,
+                baseNanos / 1_000_000, latencyBudget.toMillis());
+        return cost;
+    }
+}
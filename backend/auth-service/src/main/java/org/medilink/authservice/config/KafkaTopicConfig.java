@@ -0,0 +1,19 @@
+package org.medilink.authservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.medilink.authservice.kafka.KafkaProducer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    @Bean
+    public NewTopic revocationTopic(){
+        return TopicBuilder.name(KafkaProducer.REVOCATION_TOPIC)
+                .partitions(1)
+                .compact()
+                .build();
+    }
+}
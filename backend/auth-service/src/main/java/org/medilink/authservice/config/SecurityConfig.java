@@ -21,7 +21,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(BcryptCost bcryptCost){
+        return new BCryptPasswordEncoder(bcryptCost.getTarget());
     }
 }
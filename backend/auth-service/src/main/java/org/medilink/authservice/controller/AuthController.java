@@ -1,39 +1,74 @@
 package org.medilink.authservice.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.medilink.authservice.dto.BatchValidateRequestDTO;
 import org.medilink.authservice.dto.LoginRequestDTO;
 import org.medilink.authservice.dto.LoginResponseDTO;
 import org.medilink.authservice.dto.RegisterRequestDTO;
+import org.medilink.authservice.dto.TokenClaimsDTO;
+import org.medilink.authservice.dto.TokenValidationResultDTO;
+import org.medilink.authservice.dto.UserImportResultDTO;
+import org.medilink.authservice.exception.ImportInProgressException;
+import org.medilink.authservice.exception.LoginThrottledException;
+import org.medilink.authservice.exception.PasswordHashingUnavailableException;
+import org.medilink.authservice.exception.TokenValidationUnavailableException;
 import org.medilink.authservice.service.AuthService;
+import org.medilink.authservice.service.SigningKeyService;
+import org.medilink.authservice.service.UserImportService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+    private static final String INTERNAL_TOKEN_HEADER = "X-Internal-Token";
     private final AuthService authService;
+    private final SigningKeyService signingKeyService;
+    private final UserImportService userImportService;
+    private final int maxBatchSize;
+    private final boolean trustForwardedFor;
+    private final Set<String> importRoles;
+    private final byte[] internalToken;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, SigningKeyService signingKeyService,
+                          UserImportService userImportService,
+                          @Value("${auth.validate.batch.max-size:1000}") int maxBatchSize,
+                          @Value("${auth.login-throttle.trust-forwarded-for:true}") boolean trustForwardedFor,
+                          @Value("${auth.import.allowed-roles:ADMIN,HOSPITAL_ADMIN}") Set<String> importRoles,
+                          @Value("${auth.internal.token:}") String internalToken) {
         this.authService = authService;
+        this.signingKeyService = signingKeyService;
+        this.userImportService = userImportService;
+        this.importRoles = importRoles;
+        this.maxBatchSize = maxBatchSize;
+        this.trustForwardedFor = trustForwardedFor;
+        this.internalToken = internalToken.getBytes(StandardCharsets.UTF_8);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponseDTO> login(@RequestBody LoginRequestDTO loginRequestDTO) {
-        Optional<String> tokenOptional = authService.authenticate(loginRequestDTO);
+    public ResponseEntity<LoginResponseDTO> login(@RequestBody LoginRequestDTO loginRequestDTO, HttpServletRequest request) {
+        Optional<LoginResponseDTO> loginResponse = authService.authenticate(loginRequestDTO, clientIp(request));
 
-        if(tokenOptional.isEmpty()){
+        if(loginResponse.isEmpty()){
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-
-        String token = tokenOptional.get();
-        String name = authService.extractName(token);
-        String email = authService.extractEmail(token);
-        return ResponseEntity.ok(new LoginResponseDTO(token, name, email));
+        return ResponseEntity.ok(loginResponse.get());
     }
 
     @GetMapping("/validate")
@@ -42,30 +77,153 @@ public class AuthController {
              return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
          }
          String token = authHeader.substring(7);
-         if(!authService.validateToken(token)){
+         Optional<TokenClaimsDTO> claims = authService.introspect(token);
+         if(claims.isEmpty()){
              return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
          }
 
-         String userId = authService.extractUserId(token);
+         String userId = claims.get().getUserId();
          if(userId == null){
              return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User id missing in token"));
          }
-         return ResponseEntity.ok(Map.of("userId", userId));
+         Map<String, Object> body = new HashMap<>();
+         body.put("userId", userId);
+         if(claims.get().getRole() != null){
+             body.put("role", claims.get().getRole());
+         }
+         if(claims.get().getExpiration() != null){
+             body.put("exp", claims.get().getExpiration().toInstant().getEpochSecond());
+         }
+         if(claims.get().getTokenId() != null){
+             body.put("jti", claims.get().getTokenId());
+         }
+         return ResponseEntity.ok(body);
+    }
+
+    // Service-to-service only: not routed by the gateway, and callers must present auth.internal.token.
+    // Without a configured token the endpoint is off.
+    @PostMapping("/validate/batch")
+    public ResponseEntity<List<TokenValidationResultDTO>> validateTokens(
+            @RequestHeader(value = INTERNAL_TOKEN_HEADER, required = false) String callerToken,
+            @RequestBody BatchValidateRequestDTO request){
+        if(internalToken.length == 0){
+            return ResponseEntity.notFound().build();
+        }
+        if(callerToken == null || !MessageDigest.isEqual(internalToken, callerToken.getBytes(StandardCharsets.UTF_8))){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if(request.getTokens() == null){
+            return ResponseEntity.badRequest().build();
+        }
+        if(request.getTokens().size() > maxBatchSize){
+            logger.warn("Rejecting token batch of size {} (max {})", request.getTokens().size(), maxBatchSize);
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.ok(authService.introspectAll(request.getTokens()));
+    }
+
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revoke(@RequestHeader("Authorization") String authHeader){
+        if(authHeader == null || !authHeader.startsWith("Bearer ")){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if(!authService.revoke(authHeader.substring(7))){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    // Exact check behind the revocation Bloom filter; verifiers only call this on a filter hit
+    @GetMapping("/revocations/{tokenId}")
+    public ResponseEntity<Map<String, Object>> revocationStatus(@PathVariable String tokenId){
+        return ResponseEntity.ok(Map.of("tokenId", tokenId, "revoked", authService.isRevoked(tokenId)));
+    }
+
+    // Bulk onboarding; the body is streamed, so files of any size are read with bounded memory
+    @PostMapping(value = "/users/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<UserImportResultDTO> importUsers(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                                           HttpServletRequest request) throws IOException {
+        if(authHeader == null || !authHeader.startsWith("Bearer ")){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Optional<TokenClaimsDTO> claims = authService.introspect(authHeader.substring(7));
+        if(claims.isEmpty()){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if(!importRoles.contains(claims.get().getRole())){
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        UserImportService.Format format = request.getContentType().startsWith("text/csv")
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        try{
+            logger.info("User import started by {} ({})", claims.get().getUserId(), format);
+            return ResponseEntity.ok(userImportService.importUsers(request.getInputStream(), format));
+        } catch(IllegalArgumentException e){
+            logger.warn("Rejecting user import: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Public keys for local verification; includes keys published ahead of activation and retired keys
+    // whose tokens have not all expired yet
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks(){
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(signingKeyService.jwks());
     }
 
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody RegisterRequestDTO registerRequestDTO){
-        Optional<String> tokenOptional = authService.register(registerRequestDTO);
+        Optional<LoginResponseDTO> registerResponse = authService.register(registerRequestDTO);
 
-        if(tokenOptional.isEmpty()){
+        if(registerResponse.isEmpty()){
             logger.warn("Registration failed for email: {}. Email might already exist.", registerRequestDTO.getEmail());
             return ResponseEntity.status(HttpStatus.CONFLICT).body("Email already exists");
         }
 
-        String token = tokenOptional.get();
-        String name = authService.extractName(token);
-        String email = authService.extractEmail(token);
         logger.info("Registration successful for email: {}", registerRequestDTO.getEmail());
-        return ResponseEntity.status(HttpStatus.CREATED).body(new LoginResponseDTO(token, name, email));
+        return ResponseEntity.status(HttpStatus.CREATED).body(registerResponse.get());
+    }
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<String> hashingUnavailable(PasswordHashingUnavailableException e){
+        logger.warn("Shedding password hashing request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Service busy, retry shortly");
+    }
+
+    @ExceptionHandler(TokenValidationUnavailableException.class)
+    public ResponseEntity<String> validationUnavailable(TokenValidationUnavailableException e){
+        logger.warn("Shedding token batch: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Service busy, retry shortly");
+    }
+
+    @ExceptionHandler(ImportInProgressException.class)
+    public ResponseEntity<String> importInProgress(ImportInProgressException e){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<String> loginThrottled(LoginThrottledException e){
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body("Too many login attempts, retry later");
+    }
+
+    // Behind the gateway every request comes from the gateway's address; the gateway appends the address it saw
+    // to X-Forwarded-For, so the last entry is the caller
+    private String clientIp(HttpServletRequest request){
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if(trustForwardedFor && forwardedFor != null && !forwardedFor.isBlank()){
+            String[] hops = forwardedFor.split(",");
+            return hops[hops.length - 1].trim();
+        }
+        return request.getRemoteAddr();
     }
 }
@@ -0,0 +1,15 @@
+package org.medilink.authservice.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BatchValidateRequestDTO {
+
+    @NotNull(message = "Tokens are required")
+    private List<String> tokens;
+}
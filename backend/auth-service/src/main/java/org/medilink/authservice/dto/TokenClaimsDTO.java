@@ -0,0 +1,17 @@
+package org.medilink.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Date;
+
+@Data
+@AllArgsConstructor
+public class TokenClaimsDTO {
+    private final String userId;
+    private final String email;
+    private final String name;
+    private final String role;
+    private final Date expiration;
+    private final String tokenId;
+}
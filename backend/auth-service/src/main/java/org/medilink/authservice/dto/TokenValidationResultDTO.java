@@ -0,0 +1,23 @@
+package org.medilink.authservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenValidationResultDTO {
+    private final boolean valid;
+    private final String userId;
+    private final String role;
+    private final Long exp;
+    private final String error;
+
+    public static TokenValidationResultDTO valid(TokenClaimsDTO claims) {
+        Long exp = claims.getExpiration() == null ? null : claims.getExpiration().toInstant().getEpochSecond();
+        return new TokenValidationResultDTO(true, claims.getUserId(), claims.getRole(), exp, null);
+    }
+
+    public static TokenValidationResultDTO invalid(String error) {
+        return new TokenValidationResultDTO(false, null, null, null, error);
+    }
+}
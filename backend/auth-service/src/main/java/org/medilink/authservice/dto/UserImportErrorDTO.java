@@ -0,0 +1,12 @@
+package org.medilink.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserImportErrorDTO {
+    private long line;
+    private String email;
+    private String error;
+}
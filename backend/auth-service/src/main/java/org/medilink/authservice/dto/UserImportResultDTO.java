@@ -0,0 +1,15 @@
+package org.medilink.authservice.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class UserImportResultDTO {
+    private long imported;
+    private long failed;
+    private List<UserImportErrorDTO> errors = new ArrayList<>();
+    // true when more rows failed than are listed in errors
+    private boolean errorsTruncated;
+}
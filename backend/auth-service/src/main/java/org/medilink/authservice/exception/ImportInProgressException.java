@@ -0,0 +1,7 @@
+package org.medilink.authservice.exception;
+
+public class ImportInProgressException extends RuntimeException {
+    public ImportInProgressException(String message) {
+        super(message);
+    }
+}
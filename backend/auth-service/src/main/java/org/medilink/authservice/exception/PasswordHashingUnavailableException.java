@@ -0,0 +1,9 @@
+package org.medilink.authservice.exception;
+
+// The password hashing pool is saturated; callers should back off and retry rather than queue on request threads
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
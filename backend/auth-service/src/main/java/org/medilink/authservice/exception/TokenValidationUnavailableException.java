@@ -0,0 +1,9 @@
+package org.medilink.authservice.exception;
+
+// The batch validation pool is saturated; callers should back off and retry rather than queue on request threads
+public class TokenValidationUnavailableException extends RuntimeException {
+
+    public TokenValidationUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,40 @@
+package org.medilink.authservice.kafka;
+
+import auth.events.RevocationFilterEvent;
+import com.google.protobuf.ByteString;
+import org.medilink.authservice.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class KafkaProducer {
+    private static final Logger logger = LoggerFactory.getLogger(KafkaProducer.class);
+
+    public static final String REVOCATION_TOPIC = "token-revocations";
+    // single key on a compacted topic: a verifier that starts up only has to read the latest filter
+    private static final String REVOCATION_KEY = "filter";
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public void sendRevocationFilter(BloomFilter filter, int entryCount){
+        RevocationFilterEvent event = RevocationFilterEvent.newBuilder()
+                .setBits(ByteString.copyFrom(filter.toByteArray()))
+                .setBitCount(filter.getBitCount())
+                .setHashCount(filter.getHashCount())
+                .setEntryCount(entryCount)
+                .setGeneratedAt(System.currentTimeMillis())
+                .build();
+
+        try{
+            kafkaTemplate.send(REVOCATION_TOPIC, REVOCATION_KEY, event.toByteArray());
+        } catch(Exception e){
+            logger.error("Error sending revocation filter with {} entries", entryCount, e);
+        }
+    }
+}
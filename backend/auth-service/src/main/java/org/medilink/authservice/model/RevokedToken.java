@@ -0,0 +1,30 @@
+package org.medilink.authservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+// revoked_at is scanned by the incremental sync that keeps every instance's in-memory set current
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revokedAt")
+})
+public class RevokedToken {
+
+    // the token's jti claim
+    @Id
+    private String tokenId;
+
+    private String userId;
+
+    @Column(nullable = false)
+    private Instant revokedAt;
+
+    // the token's own exp; the row is useless afterwards and gets purged
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
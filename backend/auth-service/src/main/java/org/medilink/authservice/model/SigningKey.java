@@ -0,0 +1,42 @@
+package org.medilink.authservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "signing_keys")
+public class SigningKey {
+
+    @Id
+    private String kid;
+
+    @Column(nullable = false)
+    private String algorithm;
+
+    // AES-GCM encrypted PKCS#8, see SigningKeyCipher
+    @Column(nullable = false, length = 4096)
+    private String privateKey;
+
+    @Column(nullable = false, length = 1024)
+    private String publicKey;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // tokens are signed with the newest key whose activatesAt has passed
+    @Column(nullable = false)
+    private Instant activatesAt;
+
+    // kid of the key this one succeeds (INITIAL for the first); unique, so two instances rotating at once
+    // cannot both create a successor
+    @Column(unique = true)
+    private String predecessorKid;
+
+    // set once a successor is scheduled; the key stays published until every token it signed has expired
+    private Instant expiresAt;
+}
@@ -0,0 +1,18 @@
+package org.medilink.authservice.repository;
+
+import org.medilink.authservice.model.SigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+
+    List<SigningKey> findByExpiresAtIsNullOrExpiresAtAfter(Instant now);
+
+    @Transactional
+    void deleteByExpiresAtBefore(Instant now);
+}
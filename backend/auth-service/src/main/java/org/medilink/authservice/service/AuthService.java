@@ -1,32 +1,68 @@
 package org.medilink.authservice.service;
 
 import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PreDestroy;
 import org.medilink.authservice.dto.LoginRequestDTO;
+import org.medilink.authservice.dto.LoginResponseDTO;
 import org.medilink.authservice.dto.RegisterRequestDTO;
+import org.medilink.authservice.dto.TokenClaimsDTO;
+import org.medilink.authservice.dto.TokenValidationResultDTO;
+import org.medilink.authservice.exception.LoginThrottledException;
+import org.medilink.authservice.exception.TokenValidationUnavailableException;
 import org.medilink.authservice.model.User;
 import org.medilink.authservice.util.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @Service
 public class AuthService {
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+    private static final int BATCH_SLICE_SIZE = 64;
 
     private final UserService userService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtil jwtUtil;
+    private final LoginThrottle loginThrottle;
+    private final RevocationService revocationService;
+    private final ThreadPoolExecutor batchExecutor;
 
-    public AuthService(UserService userService, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public AuthService(UserService userService, PasswordHashingService passwordHashingService, JwtUtil jwtUtil,
+                       LoginThrottle loginThrottle, RevocationService revocationService,
+                       @Value("${auth.validate.batch.threads:0}") int batchThreads,
+                       @Value("${auth.validate.batch.queue-capacity:32}") int batchQueueCapacity) {
         this.userService = userService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.jwtUtil = jwtUtil;
+        this.loginThrottle = loginThrottle;
+        this.revocationService = revocationService;
+
+        int poolSize = batchThreads > 0 ? batchThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.batchExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "token-validation-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
     }
 
-    public Optional<String> register(RegisterRequestDTO registerRequestDTO){
+    public Optional<LoginResponseDTO> register(RegisterRequestDTO registerRequestDTO){
         if(userService.findByEmail(registerRequestDTO.getEmail()).isPresent()){
             logger.warn("Registration failed: Email {} already exists", registerRequestDTO.getEmail());
             return Optional.empty();
@@ -35,44 +71,133 @@ public class AuthService {
         User newUser = new User();
         newUser.setName(registerRequestDTO.getName());
         newUser.setEmail(registerRequestDTO.getEmail());
-        newUser.setPassword(passwordEncoder.encode(registerRequestDTO.getPassword()));
+        newUser.setPassword(passwordHashingService.encode(registerRequestDTO.getPassword()));
         newUser.setRole(registerRequestDTO.getRole());
 
         User savedUser = userService.saveUser(newUser);
         logger.info("User {} registered successfully with ID {}", savedUser.getEmail(), savedUser.getId());
 
-        return Optional.of(jwtUtil.generateToken(savedUser.getEmail(), savedUser.getId().toString(),savedUser.getRole(), savedUser.getName()));
+        return Optional.of(issueToken(savedUser));
+    }
+
+    // Throttled attempts are turned away before the database or BCrypt are touched. Unknown emails never reach
+    // BCrypt and count as failures, so repeated guesses at one are throttled like wrong passwords; the user is
+    // always looked up, since it may have just been registered on another instance
+    public Optional<LoginResponseDTO> authenticate(LoginRequestDTO loginRequestDTO, String clientIp){
+        String email = loginRequestDTO.getEmail();
+        long retryAfter = loginThrottle.tryAcquire(email, clientIp);
+        if(retryAfter > 0){
+            throw new LoginThrottledException(retryAfter);
+        }
+
+        Optional<User> user = userService.findByEmail(email);
+        if(user.isEmpty()){
+            loginThrottle.recordFailure(email);
+            return Optional.empty();
+        }
+        if(!passwordHashingService.matches(loginRequestDTO.getPassword(), user.get().getPassword())){
+            loginThrottle.recordFailure(email);
+            return Optional.empty();
+        }
+
+        loginThrottle.recordSuccess(email);
+        migrateHashCost(user.get(), loginRequestDTO.getPassword());
+        return Optional.of(issueToken(user.get()));
     }
 
-    public Optional<String> authenticate(LoginRequestDTO loginRequestDTO){
-        Optional<String> token = userService.findByEmail(loginRequestDTO.getEmail())
-                .filter(user -> passwordEncoder.matches(loginRequestDTO.getPassword(), user.getPassword()))
-                .map(user -> jwtUtil.generateToken(user.getEmail(), user.getId().toString(), user.getRole(), user.getName()));
-        return token;
+    // Moves the stored hash to the configured BCrypt cost, up or down, without asking anyone to reset a password
+    private void migrateHashCost(User user, String rawPassword){
+        if(!passwordHashingService.needsRehash(user.getPassword())){
+            return;
+        }
+        passwordHashingService.rehashInBackground(rawPassword, newHash -> {
+            if(userService.replacePasswordHash(user, newHash)){
+                logger.info("Migrated password hash of user {} to the current BCrypt cost", user.getId());
+            }
+        });
     }
 
-     public boolean validateToken(String token){
+    // The response is built from the user we just signed for, so the fresh token never has to be parsed back
+    private LoginResponseDTO issueToken(User user){
+        String token = jwtUtil.generateToken(user.getEmail(), user.getId().toString(), user.getRole(), user.getName());
+        return new LoginResponseDTO(token, user.getName(), user.getEmail());
+    }
+
+     // Signature checks are pure CPU, so large batches are split into slices on a bounded pool of their own; a
+     // full pool sheds the batch instead of borrowing the common fork-join pool or request threads
+     public List<TokenValidationResultDTO> introspectAll(List<String> tokens){
+        if(tokens.size() < BATCH_SLICE_SIZE){
+            return tokens.stream().map(this::validateOne).collect(Collectors.toList());
+        }
+
+        List<Future<List<TokenValidationResultDTO>>> slices = new ArrayList<>();
         try{
-            jwtUtil.validateToken(token);
-            return true;
+            for(int from = 0; from < tokens.size(); from += BATCH_SLICE_SIZE){
+                List<String> slice = tokens.subList(from, Math.min(from + BATCH_SLICE_SIZE, tokens.size()));
+                slices.add(batchExecutor.submit(() -> slice.stream().map(this::validateOne).collect(Collectors.toList())));
+            }
+            List<TokenValidationResultDTO> results = new ArrayList<>(tokens.size());
+            for(Future<List<TokenValidationResultDTO>> slice : slices){
+                results.addAll(slice.get());
+            }
+            return results;
+        } catch(RejectedExecutionException e){
+            slices.forEach(slice -> slice.cancel(true));
+            throw new TokenValidationUnavailableException("Token validation pool is full");
+        } catch(InterruptedException e){
+            slices.forEach(slice -> slice.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new TokenValidationUnavailableException("Interrupted while validating tokens");
+        } catch(ExecutionException e){
+            slices.forEach(slice -> slice.cancel(true));
+            throw new IllegalStateException("Token validation failed", e.getCause());
+        }
+     }
+
+     private TokenValidationResultDTO validateOne(String token){
+        if(token == null || token.isBlank()){
+            return TokenValidationResultDTO.invalid("Token missing");
+        }
+        String raw = token.startsWith("Bearer ") ? token.substring(7) : token;
+        try{
+            TokenClaimsDTO claims = jwtUtil.parseToken(raw);
+            if(claims.getUserId() == null){
+                return TokenValidationResultDTO.invalid("User id missing in token");
+            }
+            if(revocationService.isRevoked(claims.getTokenId())){
+                return TokenValidationResultDTO.invalid("Token revoked");
+            }
+            return TokenValidationResultDTO.valid(claims);
         } catch(JwtException e){
-            return false;
+            return TokenValidationResultDTO.invalid(e.getMessage());
         }
      }
 
-     public String extractUserId(String token){
-        return jwtUtil.extractUserId(token);
+     public Optional<TokenClaimsDTO> introspect(String token){
+        try{
+            TokenClaimsDTO claims = jwtUtil.parseToken(token);
+            return revocationService.isRevoked(claims.getTokenId()) ? Optional.empty() : Optional.of(claims);
+        } catch(JwtException e){
+            return Optional.empty();
+        }
      }
 
-     public String extractEmail(String token){
-        return jwtUtil.extractEmail(token);
+     // Revokes the presented token itself, i.e. logout; false if it was not a valid token to begin with
+     public boolean revoke(String token){
+        Optional<TokenClaimsDTO> claims = introspect(token);
+        if(claims.isEmpty()){
+            return false;
+        }
+        revocationService.revoke(claims.get());
+        return true;
      }
 
-     public String extractName(String token){
-        return jwtUtil.extractName(token);
+     public boolean isRevoked(String tokenId){
+        return revocationService.isRevoked(tokenId);
      }
 
-     public String extractRole(String token){
-        return jwtUtil.extractRole(token);
+     @PreDestroy
+     public void shutdown(){
+        batchExecutor.shutdown();
      }
 }
@@ -0,0 +1,171 @@
+package org.medilink.authservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Sliding-window attempt counters per email and per client IP, checked before /login touches the database or
+// BCrypt. Each window is approximated from the previous and current fixed-window counts, so a key costs two ints
+// regardless of traffic. Keys are spread over lock stripes and dropped once their windows have gone quiet.
+@Service
+public class LoginThrottle {
+
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long windowNanos;
+    private final int maxFailuresPerEmail;
+    private final int maxAttemptsPerIp;
+    private final AtomicInteger trackedKeys = new AtomicInteger();
+
+    public LoginThrottle(@Value("${auth.login-throttle.window:1m}") Duration window,
+                         @Value("${auth.login-throttle.email.max-failures:5}") int maxFailuresPerEmail,
+                         @Value("${auth.login-throttle.ip.max-attempts:50}") int maxAttemptsPerIp,
+                         MeterRegistry meterRegistry) {
+        this.windowNanos = window.toNanos();
+        this.maxFailuresPerEmail = maxFailuresPerEmail;
+        this.maxAttemptsPerIp = maxAttemptsPerIp;
+        for(int i = 0; i < STRIPES; i++){
+            stripes[i] = new Stripe();
+        }
+        meterRegistry.gauge("auth.login.throttle.keys", trackedKeys);
+    }
+
+    // Returns 0 and counts the attempt against the IP when it may proceed, otherwise the seconds to wait
+    public long tryAcquire(String email, String clientIp) {
+        long now = System.nanoTime();
+        long emailWait = waitFor(emailKey(email), maxFailuresPerEmail, now);
+        long ipWait = waitFor(ipKey(clientIp), maxAttemptsPerIp, now);
+        long wait = Math.max(emailWait, ipWait);
+        if(wait > 0){
+            return Math.max(1, Duration.ofNanos(wait).toSeconds());
+        }
+        increment(ipKey(clientIp), now);
+        return 0;
+    }
+
+    public void recordFailure(String email) {
+        increment(emailKey(email), System.nanoTime());
+    }
+
+    public void recordSuccess(String email) {
+        String key = emailKey(email);
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try{
+            if(stripe.windows.remove(key) != null){
+                trackedKeys.decrementAndGet();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.login-throttle.window:1m}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for(Stripe stripe : stripes){
+            stripe.lock.lock();
+            try{
+                Iterator<Window> iterator = stripe.windows.values().iterator();
+                while(iterator.hasNext()){
+                    Window window = iterator.next();
+                    if(now - window.windowStart >= 2 * windowNanos){
+                        iterator.remove();
+                        trackedKeys.decrementAndGet();
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private long waitFor(String key, int limit, long now) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try{
+            Window window = stripe.windows.get(key);
+            if(window == null){
+                return 0;
+            }
+            window.roll(now, windowNanos);
+            long elapsed = now - window.windowStart;
+            double previousWeight = (double) (windowNanos - elapsed) / windowNanos;
+            if(window.previous * previousWeight + window.current < limit){
+                return 0;
+            }
+            // the estimate drops as the previous window slides out; worst case the full current window remains
+            return windowNanos - elapsed;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void increment(String key, long now) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try{
+            Window window = windowFor(stripe, key, now);
+            window.roll(now, windowNanos);
+            window.current++;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Window windowFor(Stripe stripe, String key, long now) {
+        Window window = stripe.windows.get(key);
+        if(window == null){
+            window = new Window(now);
+            stripe.windows.put(key, window);
+            trackedKeys.incrementAndGet();
+        }
+        return window;
+    }
+
+    private Stripe stripeFor(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static String emailKey(String email) {
+        return "email:" + (email == null ? "" : email.trim().toLowerCase());
+    }
+
+    private static String ipKey(String clientIp) {
+        return "ip:" + clientIp;
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Window> windows = new HashMap<>();
+    }
+
+    private static final class Window {
+        private long windowStart;
+        private int previous;
+        private int current;
+
+        private Window(long now) {
+            this.windowStart = now;
+        }
+
+        private void roll(long now, long windowNanos) {
+            long elapsedWindows = (now - windowStart) / windowNanos;
+            if(elapsedWindows == 0){
+                return;
+            }
+            previous = elapsedWindows == 1 ? current : 0;
+            current = 0;
+            windowStart += elapsedWindows * windowNanos;
+        }
+    }
+}
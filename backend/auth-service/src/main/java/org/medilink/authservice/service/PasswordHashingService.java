@@ -0,0 +1,191 @@
+package org.medilink.authservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.medilink.authservice.config.BcryptCost;
+import org.medilink.authservice.exception.PasswordHashingUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// BCrypt runs on its own small pool so a login burst can use at most `threads` cores; the rest stay free for
+// /validate and other cheap endpoints. Work beyond the queue limit is rejected immediately instead of piling up.
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+    private static final long BULK_BACKOFF_MILLIS = 50;
+
+    private final PasswordEncoder passwordEncoder;
+    private final int targetCost;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejected;
+    private final Counter rehashed;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  BcryptCost bcryptCost,
+                                  @Value("${auth.hashing.threads:0}") int threads,
+                                  @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${auth.hashing.timeout:5s}") Duration timeout,
+                                  MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.targetCost = bcryptCost.getTarget();
+        this.timeout = timeout;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("auth.hashing.latency").tag("operation", "encode")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.hashing.latency").tag("operation", "matches")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.hashing.queue.wait")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.rejected = meterRegistry.counter("auth.hashing.rejected");
+        this.rehashed = meterRegistry.counter("auth.hashing.rehashed");
+        meterRegistry.gauge("auth.hashing.queue.depth", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+
+        logger.info("Password hashing pool: {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+
+    public String encode(String rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(matchTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // Bulk encoding (imports) on the same pool as logins, so it never adds cores of its own. At most maxInFlight
+    // of its hashes are queued or running at once, and a full queue makes it back off rather than fail, so
+    // interactive requests keep priority over the bulk job.
+    public List<String> encodeAll(List<String> rawPasswords, int maxInFlight) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+        try{
+            for(String rawPassword : rawPasswords){
+                inFlight.acquire();
+                Future<String> future = null;
+                while(future == null){
+                    try{
+                        future = executor.submit(() -> {
+                            try{
+                                return encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword));
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    } catch(RejectedExecutionException e){
+                        Thread.sleep(BULK_BACKOFF_MILLIS);
+                    }
+                }
+                futures.add(future);
+            }
+
+            List<String> hashes = new ArrayList<>(futures.size());
+            for(Future<String> future : futures){
+                hashes.add(future.get());
+            }
+            return hashes;
+        } catch(ExecutionException e){
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } catch(InterruptedException e){
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    // Both directions, so lowering the cost (or calibrating on faster hardware) also takes effect on login
+    public boolean needsRehash(String encodedPassword) {
+        return BcryptCost.costOf(encodedPassword) != targetCost;
+    }
+
+    // Re-hashes at the target cost after the response has gone out. Only uses spare capacity: if the pool is
+    // busy the migration is simply retried on the user's next login.
+    public void rehashInBackground(String rawPassword, Consumer<String> onRehashed) {
+        if(executor.getQueue().remainingCapacity() < executor.getQueue().size()){
+            return;
+        }
+        try{
+            executor.execute(() -> {
+                try{
+                    onRehashed.accept(encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+                    rehashed.increment();
+                } catch(RuntimeException e){
+                    logger.warn("Background password rehash failed: {}", e.getMessage());
+                }
+            });
+        } catch(RejectedExecutionException e){
+            logger.debug("Skipping password rehash, hashing pool is full");
+        }
+    }
+
+    private <T> T run(Timer timer, Callable<T> work) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try{
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(work);
+            });
+        } catch(RejectedExecutionException e){
+            rejected.increment();
+            throw new PasswordHashingUnavailableException("Password hashing queue is full");
+        }
+
+        try{
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch(TimeoutException e){
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingUnavailableException("Password hashing timed out");
+        } catch(InterruptedException e){
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException("Interrupted while waiting for password hashing");
+        } catch(ExecutionException e){
+            if(e.getCause() instanceof RuntimeException runtimeException){
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,126 @@
+package org.medilink.authservice.service;
+
+import jakarta.annotation.PostConstruct;
+import org.medilink.authservice.dto.TokenClaimsDTO;
+import org.medilink.authservice.kafka.KafkaProducer;
+import org.medilink.authservice.model.RevokedToken;
+import org.medilink.authservice.repository.RevokedTokenRepository;
+import org.medilink.authservice.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Revoked token ids live in the database until the token would have expired anyway. Every instance keeps the
+// unexpired set in memory for exact checks, and verifiers get a Bloom filter of it over Kafka: a miss means
+// "not revoked" without any call, a hit is confirmed against GET /revocations/{tokenId}. Revocations made on
+// other instances are pulled in by an incremental query on revoked_at, run at most once per sync-interval and
+// only when a lookup misses, so a check lags other instances by at most that interval and never costs a
+// query per token.
+@Service
+public class RevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationService.class);
+    // overlap between incremental syncs, covering clock differences between instances and in-flight commits
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final KafkaProducer kafkaProducer;
+    private final double falsePositiveRate;
+    private final long syncIntervalNanos;
+
+    private volatile Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private volatile Instant syncedUpTo = Instant.EPOCH;
+    private volatile long lastSyncNanos;
+
+    public RevocationService(RevokedTokenRepository revokedTokenRepository, KafkaProducer kafkaProducer,
+                             @Value("${auth.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                             @Value("${auth.revocation.sync-interval:1s}") Duration syncInterval) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.kafkaProducer = kafkaProducer;
+        this.falsePositiveRate = falsePositiveRate;
+        this.syncIntervalNanos = syncInterval.toNanos();
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    public void revoke(TokenClaimsDTO claims) {
+        if(claims.getTokenId() == null || claims.getExpiration() == null){
+            throw new IllegalArgumentException("Token has no id or expiry and cannot be revoked");
+        }
+        RevokedToken token = new RevokedToken();
+        token.setTokenId(claims.getTokenId());
+        token.setUserId(claims.getUserId());
+        token.setRevokedAt(Instant.now());
+        token.setExpiresAt(claims.getExpiration().toInstant());
+        revokedTokenRepository.save(token);
+        revoked.put(token.getTokenId(), token.getExpiresAt());
+        logger.info("Revoked token {} of user {}", token.getTokenId(), token.getUserId());
+
+        // the published filter replaces the previous one, so it must include other instances' recent revocations
+        syncRecent();
+        publish();
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if(tokenId == null){
+            return false;
+        }
+        Instant expiresAt = revoked.get(tokenId);
+        if(expiresAt == null){
+            syncIfStale();
+            expiresAt = revoked.get(tokenId);
+        }
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    // Picks up revocations made on other instances, drops expired entries and re-announces the filter
+    @Scheduled(fixedDelayString = "${auth.revocation.republish-interval:1m}")
+    public void refreshAndPublish() {
+        revokedTokenRepository.deleteByExpiresAtBefore(Instant.now());
+        reload();
+        publish();
+    }
+
+    // One query for any number of concurrent misses: callers that lose the race find the sync already done
+    private synchronized void syncIfStale() {
+        if(System.nanoTime() - lastSyncNanos >= syncIntervalNanos){
+            syncRecent();
+        }
+    }
+
+    private synchronized void syncRecent() {
+        Instant now = Instant.now();
+        for(RevokedToken token : revokedTokenRepository.findByRevokedAtAfter(syncedUpTo.minus(SYNC_OVERLAP))){
+            revoked.put(token.getTokenId(), token.getExpiresAt());
+        }
+        syncedUpTo = now;
+        lastSyncNanos = System.nanoTime();
+    }
+
+    private synchronized void reload() {
+        Instant now = Instant.now();
+        Map<String, Instant> fresh = new HashMap<>();
+        for(RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(now)){
+            fresh.put(token.getTokenId(), token.getExpiresAt());
+        }
+        this.revoked = new ConcurrentHashMap<>(fresh);
+        syncedUpTo = now;
+        lastSyncNanos = System.nanoTime();
+    }
+
+    private void publish() {
+        Map<String, Instant> snapshot = revoked;
+        kafkaProducer.sendRevocationFilter(BloomFilter.of(snapshot.keySet(), falsePositiveRate), snapshot.size());
+    }
+}
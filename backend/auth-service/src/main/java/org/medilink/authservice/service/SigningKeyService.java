@@ -0,0 +1,233 @@
+package org.medilink.authservice.service;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import jakarta.annotation.PostConstruct;
+import org.medilink.authservice.model.SigningKey;
+import org.medilink.authservice.repository.SigningKeyRepository;
+import org.medilink.authservice.util.SigningKeyCipher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Owns the RS256 key pairs tokens are signed with. Keys are persisted so every instance and every restart
+// signs and publishes the same set. A successor is published publish-ahead before it starts signing, so
+// verifiers refreshing the JWKS in the background learn it first; the old key stays in the JWKS until all
+// tokens it signed have expired.
+@Service
+public class SigningKeyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyService.class);
+    private static final String ALGORITHM = "RS256";
+    private static final String INITIAL = "INITIAL";
+
+    private final SigningKeyRepository signingKeyRepository;
+    private final SigningKeyCipher signingKeyCipher;
+    private final Duration rotationInterval;
+    private final Duration publishAhead;
+    private final Duration tokenLifetime;
+    private final Duration verificationOverlap;
+
+    private volatile Map<String, LoadedKey> keysById = Map.of();
+    private volatile List<LoadedKey> keysNewestFirst = List.of();
+
+    public SigningKeyService(SigningKeyRepository signingKeyRepository, SigningKeyCipher signingKeyCipher,
+                             @Value("${jwt.keys.rotation-interval:24h}") Duration rotationInterval,
+                             @Value("${jwt.keys.publish-ahead:10m}") Duration publishAhead,
+                             @Value("${jwt.keys.clock-skew:5m}") Duration clockSkew,
+                             @Value("${jwt.token-lifetime:10h}") Duration tokenLifetime) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.signingKeyCipher = signingKeyCipher;
+        this.rotationInterval = rotationInterval;
+        this.publishAhead = publishAhead;
+        this.tokenLifetime = tokenLifetime;
+        this.verificationOverlap = tokenLifetime.plus(clockSkew);
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+        if (keysNewestFirst.isEmpty()) {
+            logger.info("No signing key found, generating one");
+            signingKeyRepository.deleteByExpiresAtBefore(Instant.now());
+            createKey(Instant.now(), INITIAL);
+            reload();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys.check-interval:5m}")
+    public void rotateIfDue() {
+        reload();
+        Instant now = Instant.now();
+        LoadedKey newest = keysNewestFirst.isEmpty() ? null : keysNewestFirst.get(0);
+        if (newest == null || newest.getCreatedAt().plus(rotationInterval).isBefore(now)) {
+            Instant activatesAt = now.plus(publishAhead);
+            SigningKey successor = createKey(activatesAt, newest == null ? INITIAL : newest.getKid());
+            if (successor != null) {
+                for (SigningKey key : signingKeyRepository.findByExpiresAtIsNullOrExpiresAtAfter(now)) {
+                    if (!key.getKid().equals(successor.getKid()) && key.getExpiresAt() == null) {
+                        key.setExpiresAt(activatesAt.plus(verificationOverlap));
+                        signingKeyRepository.save(key);
+                    }
+                }
+                logger.info("Scheduled signing key {} to take over at {}", successor.getKid(), activatesAt);
+            }
+        }
+        signingKeyRepository.deleteByExpiresAtBefore(now);
+        reload();
+    }
+
+    public Duration getTokenLifetime() {
+        return tokenLifetime;
+    }
+
+    public LoadedKey activeKey() {
+        Instant now = Instant.now();
+        for (LoadedKey key : keysNewestFirst) {
+            if (!key.getActivatesAt().isAfter(now)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    public PublicKey publicKey(String kid) {
+        LoadedKey key = keysById.get(kid);
+        return key == null ? null : key.getPublicKey();
+    }
+
+    public Map<String, Object> jwks() {
+        List<Jwk<?>> keys = new ArrayList<>();
+        for (LoadedKey key : keysNewestFirst) {
+            keys.add(Jwks.builder()
+                    .key((RSAPublicKey) key.getPublicKey())
+                    .id(key.getKid())
+                    .algorithm(ALGORITHM)
+                    .publicKeyUse("sig")
+                    .build());
+        }
+        return Map.of("keys", keys);
+    }
+
+    // Returns null when another instance already created the successor of predecessorKid
+    private SigningKey createKey(Instant activatesAt, String predecessorKid) {
+        KeyPair keyPair = Jwts.SIG.RS256.keyPair().build();
+        SigningKey key = new SigningKey();
+        key.setKid(UUID.randomUUID().toString());
+        key.setAlgorithm(ALGORITHM);
+        try {
+            key.setPrivateKey(signingKeyCipher.encrypt(keyPair.getPrivate().getEncoded(), key.getKid()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt signing key", e);
+        }
+        key.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        key.setPredecessorKid(predecessorKid);
+        key.setCreatedAt(Instant.now());
+        key.setActivatesAt(activatesAt);
+        try {
+            return signingKeyRepository.saveAndFlush(key);
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Successor of signing key {} was already created by another instance", predecessorKid);
+            return null;
+        }
+    }
+
+    // A key that does not decrypt means the configured encryption key is wrong; failing here stops startup (and
+    // keeps the previous key set on a scheduled reload) instead of silently running without a signing key
+    private void reload() {
+        List<LoadedKey> loaded = new ArrayList<>();
+        for (SigningKey key : signingKeyRepository.findByExpiresAtIsNullOrExpiresAtAfter(Instant.now())) {
+            try {
+                loaded.add(LoadedKey.from(key, signingKeyCipher.decrypt(key.getPrivateKey(), key.getKid())));
+                if (!signingKeyCipher.isEncrypted(key.getPrivateKey())) {
+                    encryptLegacyKey(key);
+                }
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Signing key " + key.getKid()
+                        + " cannot be decrypted; check jwt.keys.encryption-key (JWT_KEYS_ENCRYPTION_KEY)", e);
+            }
+        }
+        loaded.sort(Comparator.comparing(LoadedKey::getActivatesAt).reversed());
+
+        Map<String, LoadedKey> byId = new HashMap<>();
+        for (LoadedKey key : loaded) {
+            byId.put(key.getKid(), key);
+        }
+        this.keysById = Map.copyOf(byId);
+        this.keysNewestFirst = List.copyOf(loaded);
+    }
+
+    // keys written before encryption at rest are re-encrypted the first time they are loaded
+    private void encryptLegacyKey(SigningKey key) throws GeneralSecurityException {
+        key.setPrivateKey(signingKeyCipher.encrypt(Base64.getDecoder().decode(key.getPrivateKey()), key.getKid()));
+        signingKeyRepository.save(key);
+        logger.info("Encrypted legacy plaintext signing key {}", key.getKid());
+    }
+
+    public static final class LoadedKey {
+
+        private final String kid;
+        private final PrivateKey privateKey;
+        private final PublicKey publicKey;
+        private final Instant createdAt;
+        private final Instant activatesAt;
+
+        private LoadedKey(String kid, PrivateKey privateKey, PublicKey publicKey, Instant createdAt, Instant activatesAt) {
+            this.kid = kid;
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.createdAt = createdAt;
+            this.activatesAt = activatesAt;
+        }
+
+        static LoadedKey from(SigningKey key, byte[] pkcs8PrivateKey) throws GeneralSecurityException {
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(pkcs8PrivateKey));
+            PublicKey publicKey = keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(key.getPublicKey())));
+            return new LoadedKey(key.getKid(), privateKey, publicKey, key.getCreatedAt(), key.getActivatesAt());
+        }
+
+        public String getKid() {
+            return kid;
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        public PublicKey getPublicKey() {
+            return publicKey;
+        }
+
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+
+        public Instant getActivatesAt() {
+            return activatesAt;
+        }
+    }
+}
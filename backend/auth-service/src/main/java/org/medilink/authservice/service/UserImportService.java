@@ -0,0 +1,327 @@
+package org.medilink.authservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.medilink.authservice.dto.RegisterRequestDTO;
+import org.medilink.authservice.dto.UserImportErrorDTO;
+import org.medilink.authservice.dto.UserImportResultDTO;
+import org.medilink.authservice.exception.ImportInProgressException;
+import org.medilink.authservice.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+// Bulk onboarding: reads NDJSON or CSV line by line and handles it in chunks of batch-size rows, so memory use
+// is bounded by the chunk, not the file. Duplicates are caught per chunk; a repeat of an email from an earlier
+// chunk is already in the table by then and is reported as existing. Each chunk costs one existence query, a BCrypt pass on the shared
+// hashing pool (capped at hash-concurrency hashes in flight, so logins keep priority) and one JDBC batch
+// insert. No tokens are minted.
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+    private static final String INSERT_USER = "INSERT INTO users (id, name, email, password, role) VALUES (?, ?, ?, ?, ?)";
+    private static final List<String> CSV_COLUMNS = List.of("name", "email", "password", "role");
+
+    public enum Format { NDJSON, CSV }
+
+    private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int hashConcurrency;
+    private final int batchSize;
+    private final int maxReportedErrors;
+    // one import at a time, otherwise two imports would compete for the same hashing budget
+    private final Semaphore importPermit = new Semaphore(1);
+
+    public UserImportService(UserRepository userRepository, PasswordHashingService passwordHashingService, JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${auth.import.hash-concurrency:2}") int hashConcurrency,
+                             @Value("${auth.import.batch-size:500}") int batchSize,
+                             @Value("${auth.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.userRepository = userRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.hashConcurrency = Math.max(1, hashConcurrency);
+    }
+
+    public UserImportResultDTO importUsers(InputStream input, Format format) throws IOException {
+        if(!importPermit.tryAcquire()){
+            throw new ImportInProgressException("Another user import is running");
+        }
+        try{
+            return readAndImport(input, format);
+        } finally {
+            importPermit.release();
+        }
+    }
+
+    private UserImportResultDTO readAndImport(InputStream input, Format format) throws IOException {
+        UserImportResultDTO result = new UserImportResultDTO();
+        Set<String> chunkEmails = new HashSet<>();
+        List<ImportRow> chunk = new ArrayList<>(batchSize);
+        Map<String, Integer> csvColumns = null;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while((line = reader.readLine()) != null){
+            lineNumber++;
+            if(line.isBlank()){
+                continue;
+            }
+            if(format == Format.CSV && csvColumns == null){
+                csvColumns = parseCsvHeader(line);
+                continue;
+            }
+
+            ImportRow row;
+            try{
+                row = format == Format.CSV ? parseCsvRow(lineNumber, line, csvColumns) : parseJsonRow(lineNumber, line);
+            } catch(IllegalArgumentException e){
+                fail(result, lineNumber, null, e.getMessage());
+                continue;
+            }
+            String invalid = validate(row);
+            if(invalid != null){
+                fail(result, lineNumber, row.email, invalid);
+                continue;
+            }
+            if(!chunkEmails.add(row.email)){
+                fail(result, lineNumber, row.email, "Duplicate email in file");
+                continue;
+            }
+
+            chunk.add(row);
+            if(chunk.size() == batchSize){
+                importChunk(chunk, result);
+                chunk.clear();
+                chunkEmails.clear();
+            }
+        }
+        if(!chunk.isEmpty()){
+            importChunk(chunk, result);
+        }
+
+        logger.info("User import finished: {} imported, {} failed", result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private void importChunk(List<ImportRow> chunk, UserImportResultDTO result) {
+        List<String> emails = new ArrayList<>(chunk.size());
+        for(ImportRow row : chunk){
+            emails.add(row.email);
+        }
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(emails));
+
+        List<ImportRow> fresh = new ArrayList<>(chunk.size());
+        for(ImportRow row : chunk){
+            if(existing.contains(row.email)){
+                fail(result, row.line, row.email, "Email already exists");
+            } else {
+                fresh.add(row);
+            }
+        }
+        if(fresh.isEmpty()){
+            return;
+        }
+
+        hashAll(fresh);
+        try{
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_USER, fresh, fresh.size(), (statement, row) -> {
+                        statement.setObject(1, row.id);
+                        statement.setString(2, row.name);
+                        statement.setString(3, row.email);
+                        statement.setString(4, row.passwordHash);
+                        statement.setString(5, row.role);
+                    }));
+            for(ImportRow row : fresh){
+                imported(result, row);
+            }
+        } catch(DataIntegrityViolationException e){
+            // someone registered one of these emails meanwhile; the batch rolled back, so find the culprits row by row
+            logger.debug("Batch insert conflicted, retrying {} rows individually", fresh.size());
+            for(ImportRow row : fresh){
+                insertOne(row, result);
+            }
+        }
+    }
+
+    private void insertOne(ImportRow row, UserImportResultDTO result) {
+        try{
+            jdbcTemplate.update(INSERT_USER, row.id, row.name, row.email, row.passwordHash, row.role);
+            imported(result, row);
+        } catch(DataIntegrityViolationException e){
+            fail(result, row.line, row.email, "Email already exists");
+        } catch(DataAccessException e){
+            fail(result, row.line, row.email, "Insert failed");
+        }
+    }
+
+    private void hashAll(List<ImportRow> rows) {
+        List<String> passwords = new ArrayList<>(rows.size());
+        for(ImportRow row : rows){
+            passwords.add(row.password);
+        }
+        try{
+            List<String> hashes = passwordHashingService.encodeAll(passwords, hashConcurrency);
+            for(int i = 0; i < rows.size(); i++){
+                rows.get(i).passwordHash = hashes.get(i);
+                rows.get(i).password = null;
+            }
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing imported passwords", e);
+        }
+    }
+
+    private void imported(UserImportResultDTO result, ImportRow row) {
+        result.setImported(result.getImported() + 1);
+    }
+
+    private void fail(UserImportResultDTO result, long line, String email, String error) {
+        result.setFailed(result.getFailed() + 1);
+        if(result.getErrors().size() < maxReportedErrors){
+            result.getErrors().add(new UserImportErrorDTO(line, email, error));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static String validate(ImportRow row) {
+        if(isBlank(row.name)){
+            return "Name cannot be blank";
+        }
+        if(isBlank(row.email) || !row.email.contains("@")){
+            return "Email should be a valid email address";
+        }
+        if(row.password == null || row.password.length() < 6){
+            return "Password must be at least 6 characters long";
+        }
+        if(isBlank(row.role)){
+            return "Role cannot be blank";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private ImportRow parseJsonRow(long lineNumber, String line) {
+        try{
+            RegisterRequestDTO dto = objectMapper.readValue(line, RegisterRequestDTO.class);
+            return new ImportRow(lineNumber, dto.getName(), trim(dto.getEmail()), dto.getPassword(), dto.getRole());
+        } catch(JsonProcessingException e){
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+    }
+
+    private static Map<String, Integer> parseCsvHeader(String line) {
+        List<String> header = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for(int i = 0; i < header.size(); i++){
+            columns.put(header.get(i).trim().toLowerCase(), i);
+        }
+        for(String column : CSV_COLUMNS){
+            if(!columns.containsKey(column)){
+                throw new IllegalArgumentException("CSV header must contain " + String.join(",", CSV_COLUMNS));
+            }
+        }
+        return columns;
+    }
+
+    private static ImportRow parseCsvRow(long lineNumber, String line, Map<String, Integer> columns) {
+        List<String> fields = splitCsv(line);
+        if(fields.size() < columns.size()){
+            throw new IllegalArgumentException("Expected " + columns.size() + " columns but found " + fields.size());
+        }
+        return new ImportRow(lineNumber,
+                fields.get(columns.get("name")),
+                trim(fields.get(columns.get("email"))),
+                fields.get(columns.get("password")),
+                fields.get(columns.get("role")).trim());
+    }
+
+    // RFC 4180 fields on a single line: commas separate, double quotes enclose, "" is an escaped quote
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for(int i = 0; i < line.length(); i++){
+            char c = line.charAt(i);
+            if(quoted){
+                if(c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"'){
+                    field.append('"');
+                    i++;
+                } else if(c == '"'){
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if(c == '"'){
+                quoted = true;
+            } else if(c == ','){
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if(quoted){
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static final class ImportRow {
+        private final long line;
+        private final UUID id = UUID.randomUUID();
+        private final String name;
+        private final String email;
+        private final String role;
+        private String password;
+        private String passwordHash;
+
+        private ImportRow(long line, String name, String email, String password, String role) {
+            this.line = line;
+            this.name = name;
+            this.email = email;
+            this.password = password;
+            this.role = role;
+        }
+    }
+}
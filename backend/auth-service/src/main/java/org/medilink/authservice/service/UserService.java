@@ -1,31 +1,110 @@
 package org.medilink.authservice.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.medilink.authservice.model.User;
 import org.medilink.authservice.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.UUID;
 
+// Users are cached by email and by id. Writes go through the cache so this instance never serves a stale hash;
+// the TTL bounds how long a change made by another instance can go unseen. Only hits/misses/evictions are
+// exported as metrics, never keys or values.
 @Service
 public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
-    @Autowired
-    private UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final UserRepository userRepository;
+    private final Cache<String, User> usersByEmail;
+    private final Cache<UUID, User> usersById;
+
+    public UserService(UserRepository userRepository,
+                       @Value("${auth.user-cache.max-size:10000}") long maxSize,
+                       @Value("${auth.user-cache.ttl:5m}") Duration ttl,
+                       MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.usersByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByEmail, "auth.users.by-email");
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "auth.users.by-id");
     }
 
+    // Concurrent misses for one email share a single query; absent users are not cached so a fresh
+    // registration on another instance is visible immediately
     public Optional<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        User cached = usersByEmail.get(email, key -> {
+            User loaded = userRepository.findByEmail(key).map(UserService::copyOf).orElse(null);
+            if(loaded != null){
+                usersById.put(loaded.getId(), loaded);
+            }
+            return loaded;
+        });
+        return Optional.ofNullable(cached).map(UserService::copyOf);
+    }
+
+    public Optional<User> findById(UUID id) {
+        User cached = usersById.get(id, key -> {
+            User loaded = userRepository.findById(key).map(UserService::copyOf).orElse(null);
+            if(loaded != null){
+                usersByEmail.put(loaded.getEmail(), loaded);
+            }
+            return loaded;
+        });
+        return Optional.ofNullable(cached).map(UserService::copyOf);
     }
 
     public User saveUser(User user){
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        cache(saved);
+        return saved;
+    }
+
+    public boolean replacePasswordHash(User user, String newHash){
+        boolean replaced = userRepository.replacePasswordHash(user.getId(), user.getPassword(), newHash) == 1;
+        if(replaced){
+            User updated = copyOf(user);
+            updated.setPassword(newHash);
+            cache(updated);
+        } else {
+            // someone else changed the row; drop our copy so the next read sees theirs
+            logger.debug("Password hash of user {} changed concurrently, evicting cached entry", user.getId());
+            usersByEmail.invalidate(user.getEmail());
+            usersById.invalidate(user.getId());
+        }
+        return replaced;
+    }
+
+    private void cache(User user) {
+        User snapshot = copyOf(user);
+        usersByEmail.put(snapshot.getEmail(), snapshot);
+        usersById.put(snapshot.getId(), snapshot);
+    }
+
+    // Callers get their own instance so nothing they set on it leaks into the shared cache entry
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setRole(user.getRole());
+        return copy;
     }
 }
@@ -0,0 +1,81 @@
+package org.medilink.authservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+// Plain Bloom filter over strings. The bit layout and hashing must stay in step with the api-gateway copy,
+// which only reads filters built here.
+public final class BloomFilter {
+
+    private static final long MIN_BITS = 64;
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.words = new long[(int) ((bitCount + 63) / 64)];
+    }
+
+    // Sized for the given false-positive probability: m = -n ln p / (ln 2)^2, k = m/n ln 2
+    public static BloomFilter of(Collection<String> values, double falsePositiveRate) {
+        int n = Math.max(1, values.size());
+        long bits = Math.max(MIN_BITS, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        bits = (bits + 63) / 64 * 64;
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        BloomFilter filter = new BloomFilter(bits, hashes);
+        for(String value : values){
+            filter.add(value);
+        }
+        return filter;
+    }
+
+    public void add(String value) {
+        long h1 = fnv1a64(value);
+        long h2 = mix64(h1) | 1;
+        for(int i = 0; i < hashCount; i++){
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // Little-endian words, the layout the gateway expects
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[words.length * 8];
+        for(int i = 0; i < words.length; i++){
+            for(int b = 0; b < 8; b++){
+                bytes[i * 8 + b] = (byte) (words[i] >>> (8 * b));
+            }
+        }
+        return bytes;
+    }
+
+    private static long fnv1a64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for(byte b : value.getBytes(StandardCharsets.UTF_8)){
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // murmur3 fmix64 finalizer, gives the second, independent-enough hash for double hashing
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
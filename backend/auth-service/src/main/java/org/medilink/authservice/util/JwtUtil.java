@@ -1,99 +1,91 @@
 package org.medilink.authservice.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import org.medilink.authservice.dto.TokenClaimsDTO;
+import org.medilink.authservice.service.SigningKeyService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
-    private final Key secretKey;
+    private final SigningKeyService signingKeyService;
+    // only set while tokens signed with the old shared secret may still be in circulation, and only honoured
+    // until jwt.legacy-accept-until
+    private final SecretKey legacySecretKey;
+    private final Instant legacyAcceptUntil;
+    // JwtParser is immutable and thread-safe; building one per call was most of the cost of a lookup
+    private final JwtParser parser;
 
-    public JwtUtil(@Value("${jwt.secret}") String secret) {
-        byte[] keyBytes = Base64.getDecoder()
-                .decode(secret.getBytes(StandardCharsets.UTF_8));
-        this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+    public JwtUtil(SigningKeyService signingKeyService, @Value("${jwt.secret:}") String legacySecret,
+                   @Value("${jwt.legacy-accept-until:}") String legacyAcceptUntil) {
+        this.signingKeyService = signingKeyService;
+        if(!legacySecret.isBlank() && legacyAcceptUntil.isBlank()){
+            throw new IllegalStateException("jwt.secret is set without jwt.legacy-accept-until");
+        }
+        this.legacySecretKey = legacySecret.isBlank() ? null : Keys.hmacShaKeyFor(Base64.getDecoder()
+                .decode(legacySecret.getBytes(StandardCharsets.UTF_8)));
+        this.legacyAcceptUntil = legacyAcceptUntil.isBlank() ? Instant.MIN : Instant.parse(legacyAcceptUntil);
+        this.parser = Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                if(header.getKeyId() == null){
+                    // past the cutoff HMAC tokens without a kid are rejected even if the secret is still configured
+                    return Instant.now().isBefore(JwtUtil.this.legacyAcceptUntil) ? legacySecretKey : null;
+                }
+                return signingKeyService.publicKey(header.getKeyId());
+            }
+        }).build();
     }
 
     public String generateToken(String email, String userId, String role, String name) {
+        SigningKeyService.LoadedKey signingKey = signingKeyService.activeKey();
+        if(signingKey == null){
+            throw new IllegalStateException("No active signing key");
+        }
         return Jwts.builder()
+                .header().keyId(signingKey.getKid()).and()
+                .id(UUID.randomUUID().toString())
                 .subject(userId)
                 .claim("role", role)
                 .claim("email", email)
                 .claim("name", name)
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 *10)) // 10 hours
-                .signWith(secretKey)
+                .expiration(new Date(System.currentTimeMillis() + signingKeyService.getTokenLifetime().toMillis()))
+                .signWith(signingKey.getPrivateKey(), Jwts.SIG.RS256)
                 .compact();
     }
 
-    public void validateToken(String token) {
+    // Verifies the signature once and decodes every claim callers need
+    public TokenClaimsDTO parseToken(String token) {
         try{
-            Jwts.parser().verifyWith((SecretKey) secretKey)
-                    .build()
-                    .parseSignedClaims(token);
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            return new TokenClaimsDTO(
+                    claims.getSubject(),
+                    claims.get("email", String.class),
+                    claims.get("name", String.class),
+                    claims.get("role", String.class),
+                    claims.getExpiration(),
+                    claims.getId());
         } catch(SignatureException e){
             throw new JwtException("Invalid JWT signature");
-        } catch(JwtException e){
+        } catch(JwtException | IllegalArgumentException e){
             throw new JwtException("Invalid JWT token");
         }
     }
-
-    public String extractUserId(String token){
-        try{
-            return Jwts.parser().verifyWith((SecretKey) secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload()
-                    .getSubject();
-        } catch (JwtException e){
-            throw new JwtException("Invalid JWT token while extracting userId");
-        }
-    }
-
-    public String extractEmail(String token){
-        try{
-            return Jwts.parser().verifyWith((SecretKey) secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload()
-                    .get("email", String.class);
-        } catch (JwtException e){
-            throw new JwtException("Invalid JWT token while extracting email");
-        }
-    }
-
-    public String extractName(String token){
-        try{
-            return Jwts.parser().verifyWith((SecretKey) secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload()
-                    .get("name", String.class);
-        } catch (JwtException e){
-            throw new JwtException("Invalid JWT token while extracting name");
-        }
-    }
-
-    public String extractRole(String token){
-        try{
-            return Jwts.parser().verifyWith((SecretKey) secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload()
-                    .get("role", String.class);
-        } catch (JwtException e){
-            throw new JwtException("Invalid JWT token while extracting role");
-        }
-    }
 }
@@ -0,0 +1,72 @@
+package org.medilink.authservice.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Encrypts signing private keys at rest with AES-256-GCM under a key that never lives in the database, so read
+// access to signing_keys is not enough to mint tokens. The kid is bound as associated data, so a ciphertext
+// cannot be moved to another row. Values without the prefix are legacy plaintext PKCS#8 and are still readable.
+@Component
+public class SigningKeyCipher {
+
+    private static final String PREFIX = "aesgcm:";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKey key;
+    private final SecureRandom random = new SecureRandom();
+
+    public SigningKeyCipher(@Value("${jwt.keys.encryption-key:}") String encryptionKey) {
+        if (encryptionKey.isBlank()) {
+            throw new IllegalStateException("jwt.keys.encryption-key (JWT_KEYS_ENCRYPTION_KEY) is not set");
+        }
+        byte[] raw;
+        try {
+            raw = Base64.getDecoder().decode(encryptionKey.trim());
+        } catch (IllegalArgumentException e) {
+            raw = new byte[0];
+        }
+        if (raw.length != 32) {
+            throw new IllegalStateException("jwt.keys.encryption-key must be a base64-encoded 256-bit key");
+        }
+        this.key = new SecretKeySpec(raw, "AES");
+    }
+
+    public String encrypt(byte[] privateKey, String kid) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        byte[] sealed = cipher.doFinal(privateKey);
+        return PREFIX + Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + sealed.length)
+                .put(iv)
+                .put(sealed)
+                .array());
+    }
+
+    public byte[] decrypt(String stored, String kid) throws GeneralSecurityException {
+        if (!isEncrypted(stored)) {
+            return Base64.getDecoder().decode(stored);
+        }
+        byte[] payload = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, payload, 0, IV_BYTES));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(payload, IV_BYTES, payload.length - IV_BYTES);
+    }
+
+    public boolean isEncrypted(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+}
@@ -0,0 +1,110 @@
+package org.medilink.authservice.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.medilink.authservice.dto.TokenClaimsDTO;
+import org.medilink.authservice.service.SigningKeyService;
+import org.medilink.authservice.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// /validate before and after parsing once per request. The original path built an HMAC parser and verified the
+// signature for validateToken, extractUserId and extractRole separately (hmacPerClaim); rs256PerClaim is the same
+// pattern after the move to RS256, and parseOnce is JwtUtil.parseToken verifying once on a shared parser.
+// Runs in-process (@Fork(0)) because exec:java puts the test classpath on a classloader a forked JVM can't see.
+//
+//   mvn test-compile exec:java -Dexec.classpathScope=test \
+//       -Dexec.mainClass=org.medilink.authservice.benchmark.JwtParsingBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(0)
+public class JwtParsingBenchmark {
+
+    private KeyPair keyPair;
+    private SecretKey hmacKey;
+    private JwtUtil jwtUtil;
+    private String token;
+    private String hmacToken;
+
+    @Setup
+    public void setUp() {
+        keyPair = Jwts.SIG.RS256.keyPair().build();
+        SigningKeyService.LoadedKey activeKey = mock(SigningKeyService.LoadedKey.class);
+        when(activeKey.getKid()).thenReturn("benchmark");
+        when(activeKey.getPrivateKey()).thenReturn(keyPair.getPrivate());
+        SigningKeyService signingKeyService = mock(SigningKeyService.class);
+        when(signingKeyService.activeKey()).thenReturn(activeKey);
+        when(signingKeyService.publicKey("benchmark")).thenReturn(keyPair.getPublic());
+        when(signingKeyService.getTokenLifetime()).thenReturn(Duration.ofHours(10));
+
+        jwtUtil = new JwtUtil(signingKeyService, "", "");
+        token = jwtUtil.generateToken("user@medilink.org", "7b0c1f9e-3f1a-4a52-9d7c-2f1d0c5b6a11", "PATIENT", "Benchmark User");
+
+        // the pre-RS256 token: same claims, HS256 with the shared secret, no kid
+        hmacKey = Jwts.SIG.HS256.key().build();
+        hmacToken = Jwts.builder()
+                .subject("7b0c1f9e-3f1a-4a52-9d7c-2f1d0c5b6a11")
+                .claim("role", "PATIENT")
+                .claim("email", "user@medilink.org")
+                .claim("name", "Benchmark User")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + Duration.ofHours(10).toMillis()))
+                .signWith(hmacKey)
+                .compact();
+    }
+
+    @Benchmark
+    public void hmacPerClaim(Blackhole blackhole) {
+        parseHmacFresh();
+        blackhole.consume(parseHmacFresh().getSubject());
+        blackhole.consume(parseHmacFresh().get("role", String.class));
+    }
+
+    @Benchmark
+    public void rs256PerClaim(Blackhole blackhole) {
+        parseFresh();
+        blackhole.consume(parseFresh().getSubject());
+        blackhole.consume(parseFresh().get("role", String.class));
+    }
+
+    @Benchmark
+    public TokenClaimsDTO parseOnce() {
+        return jwtUtil.parseToken(token);
+    }
+
+    private Claims parseHmacFresh() {
+        return Jwts.parser().verifyWith(hmacKey).build().parseSignedClaims(hmacToken).getPayload();
+    }
+
+    private Claims parseFresh() {
+        return Jwts.parser().verifyWith(keyPair.getPublic()).build().parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtParsingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
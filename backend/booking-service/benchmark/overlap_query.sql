@@ -0,0 +1,98 @@
+-- Conflict-check benchmark at 1M historical bookings: the old per-equipment fetch vs the indexed overlap query,
+-- with and without idx_bookings_equipment_status_dates. Runs in its own schema and drops it at the end.
+--
+--   psql "postgresql://<user>:<password>@<host>:5432/<db>" -f benchmark/overlap_query.sql
+--
+-- The old path also shipped every row to the JVM and compared dates there; the timings below are server-side
+-- only, so they understate its real cost.
+
+\set ON_ERROR_STOP on
+\timing off
+
+DROP SCHEMA IF EXISTS booking_bench CASCADE;
+CREATE SCHEMA booking_bench;
+SET search_path = booking_bench;
+
+-- same shape as the table Hibernate generates for Booking
+CREATE TABLE bookings (
+    id           uuid PRIMARY KEY,
+    equipment_id bigint           NOT NULL,
+    user_id      uuid             NOT NULL,
+    start_date   date             NOT NULL,
+    end_date     date             NOT NULL,
+    price        double precision NOT NULL,
+    status       varchar(255)
+);
+
+-- 1M bookings over 1000 equipments and the last five years; 70% confirmed, 1 to 14 days long
+SELECT setseed(0.42);
+INSERT INTO bookings (id, equipment_id, user_id, start_date, end_date, price, status)
+SELECT gen_random_uuid(),
+       (g % 1000) + 1,
+       gen_random_uuid(),
+       s.start_date,
+       s.start_date + (1 + floor(random() * 14))::int,
+       round((random() * 5000)::numeric, 2),
+       CASE WHEN random() < 0.7 THEN 'CONFIRMED' WHEN random() < 0.5 THEN 'CANCELLED' ELSE 'PENDING' END
+FROM generate_series(1, 1000000) g
+CROSS JOIN LATERAL (SELECT current_date - (floor(random() * 1825))::int AS start_date) s;
+ANALYZE bookings;
+
+-- runs each check `iterations` times for random equipments and a random two-week window in the next year
+CREATE FUNCTION bench(label text, iterations int) RETURNS void LANGUAGE plpgsql AS $$
+DECLARE
+    started timestamptz;
+    equipment bigint;
+    window_start date;
+    found boolean;
+    rows_fetched bigint;
+BEGIN
+    PERFORM setseed(0.7);
+    started := clock_timestamp();
+    FOR i IN 1..iterations LOOP
+        equipment := 1 + floor(random() * 1000);
+        SELECT count(*) INTO rows_fetched FROM (
+            SELECT * FROM bookings WHERE equipment_id = equipment AND status = 'CONFIRMED') b;
+    END LOOP;
+    RAISE NOTICE '% | old fetch-all-confirmed      | % ms/check', label,
+        round((extract(epoch FROM clock_timestamp() - started) * 1000 / iterations)::numeric, 3);
+
+    PERFORM setseed(0.7);
+    started := clock_timestamp();
+    FOR i IN 1..iterations LOOP
+        equipment := 1 + floor(random() * 1000);
+        window_start := current_date + (floor(random() * 365))::int;
+        SELECT EXISTS (SELECT 1 FROM bookings WHERE equipment_id = equipment AND status = 'CONFIRMED'
+                       AND start_date <= window_start + 14 AND end_date >= window_start) INTO found;
+    END LOOP;
+    RAISE NOTICE '% | exists overlap (free window) | % ms/check', label,
+        round((extract(epoch FROM clock_timestamp() - started) * 1000 / iterations)::numeric, 3);
+
+    PERFORM setseed(0.7);
+    started := clock_timestamp();
+    FOR i IN 1..iterations LOOP
+        equipment := 1 + floor(random() * 1000);
+        window_start := current_date - (floor(random() * 1825))::int;
+        SELECT EXISTS (SELECT 1 FROM bookings WHERE equipment_id = equipment AND status = 'CONFIRMED'
+                       AND start_date <= window_start + 14 AND end_date >= window_start) INTO found;
+    END LOOP;
+    RAISE NOTICE '% | exists overlap (past window) | % ms/check', label,
+        round((extract(epoch FROM clock_timestamp() - started) * 1000 / iterations)::numeric, 3);
+END $$;
+
+\echo '== before: no index on (equipment_id, status, start_date, end_date)'
+SELECT bench('before', 200);
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT EXISTS (SELECT 1 FROM bookings WHERE equipment_id = 42 AND status = 'CONFIRMED'
+               AND start_date <= current_date + 44 AND end_date >= current_date + 30);
+
+CREATE INDEX idx_bookings_equipment_status_dates ON bookings (equipment_id, status, start_date, end_date);
+ANALYZE bookings;
+
+\echo '== after: idx_bookings_equipment_status_dates'
+SELECT bench('after', 2000);
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT EXISTS (SELECT 1 FROM bookings WHERE equipment_id = 42 AND status = 'CONFIRMED'
+               AND start_date <= current_date + 44 AND end_date >= current_date + 30);
+
+DROP SCHEMA booking_bench CASCADE;
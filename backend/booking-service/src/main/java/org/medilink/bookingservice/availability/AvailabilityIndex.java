@@ -0,0 +1,146 @@
+package org.medilink.bookingservice.availability;
+
+import org.medilink.bookingservice.model.Booking;
+import org.medilink.bookingservice.model.BookingStatus;
+import org.medilink.bookingservice.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// In-memory copy of every PENDING and CONFIRMED booking that ends on or after the horizon (today minus
+// history-days), one interval index per equipment. Availability reads are answered from here. Writes made by
+// other instances only arrive with the periodic rebuild, so the index can be stale in both directions: writers
+// treat it as a hint and decide on the database. That check and the insert that follows are not serialized, so
+// the index adds no protection against two concurrent bookings of the same equipment.
+// Windows starting before the horizon, or asked before warm-up finishes, are not covered and go to the database.
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+    private static final Set<BookingStatus> INDEXED = Collections.unmodifiableSet(
+            EnumSet.of(BookingStatus.PENDING, BookingStatus.CONFIRMED));
+
+    private final BookingRepository bookingRepository;
+    private final int historyDays;
+
+    private volatile ConcurrentHashMap<Long, EquipmentIntervals> byEquipment = new ConcurrentHashMap<>();
+    private volatile LocalDate horizon;
+    private volatile boolean ready;
+    // changes that arrive while a rebuild is reading the table, replayed onto the rebuilt map
+    private final Queue<Booking> changedDuringRebuild = new ConcurrentLinkedQueue<>();
+    private volatile boolean rebuilding;
+
+    public AvailabilityIndex(BookingRepository bookingRepository,
+                             @Value("${booking.availability-index.history-days:30}") int historyDays) {
+        this.bookingRepository = bookingRepository;
+        this.historyDays = historyDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    // Heals anything missed, e.g. bookings written by another instance
+    @Scheduled(fixedDelayString = "${booking.availability-index.refresh-interval:300000}",
+            initialDelayString = "${booking.availability-index.refresh-interval:300000}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        LocalDate newHorizon = LocalDate.now().minusDays(historyDays);
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        try{
+            Map<Long, List<BookedInterval>> grouped = new HashMap<>();
+            List<Booking> bookings = bookingRepository.findByStatusInAndEndDateGreaterThanEqual(INDEXED, newHorizon);
+            for(Booking booking : bookings){
+                List<BookedInterval> intervals = grouped.get(booking.getEquipmentId());
+                if(intervals == null){
+                    intervals = new ArrayList<>();
+                    grouped.put(booking.getEquipmentId(), intervals);
+                }
+                intervals.add(BookedInterval.of(booking));
+            }
+
+            ConcurrentHashMap<Long, EquipmentIntervals> rebuilt = new ConcurrentHashMap<>();
+            for(Map.Entry<Long, List<BookedInterval>> entry : grouped.entrySet()){
+                rebuilt.put(entry.getKey(), EquipmentIntervals.of(entry.getValue()));
+            }
+            byEquipment = rebuilt;
+            horizon = newHorizon;
+            ready = true;
+            logger.info("Availability index built: {} bookings across {} equipments in {} ms",
+                    bookings.size(), rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch(RuntimeException e){
+            logger.error("Availability index rebuild failed, keeping previous index", e);
+        } finally {
+            rebuilding = false;
+            Booking changed;
+            while((changed = changedDuringRebuild.poll()) != null){
+                apply(changed);
+            }
+        }
+    }
+
+    // Call after every committed status or date change of a booking
+    public void onBookingChanged(Booking booking) {
+        if(booking.getId() == null || booking.getEquipmentId() == null){
+            return;
+        }
+        if(rebuilding){
+            changedDuringRebuild.add(booking);
+        }
+        apply(booking);
+    }
+
+    // Empty when the window is not covered by the index and the caller has to ask the database
+    public Optional<Boolean> hasOverlap(Long equipmentId, LocalDate start, LocalDate end, Set<BookingStatus> statuses) {
+        if(!covers(start)){
+            return Optional.empty();
+        }
+        EquipmentIntervals intervals = byEquipment.get(equipmentId);
+        return Optional.of(intervals != null && intervals.anyOverlap(start, end, statuses));
+    }
+
+    public List<BookedInterval> overlapping(Long equipmentId, LocalDate start, LocalDate end, Set<BookingStatus> statuses) {
+        EquipmentIntervals intervals = byEquipment.get(equipmentId);
+        return intervals == null ? Collections.emptyList() : intervals.overlapping(start, end, statuses);
+    }
+
+    public boolean covers(LocalDate start) {
+        LocalDate currentHorizon = horizon;
+        return ready && currentHorizon != null && !start.isBefore(currentHorizon);
+    }
+
+    public static Set<BookingStatus> statuses(BookingStatus... statuses) {
+        return Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(statuses)));
+    }
+
+    private void apply(Booking booking) {
+        final BookedInterval interval = BookedInterval.of(booking);
+        final boolean indexed = INDEXED.contains(booking.getStatus());
+        byEquipment.compute(booking.getEquipmentId(),
+                (equipmentId, current) -> {
+                    EquipmentIntervals base = current == null ? EquipmentIntervals.EMPTY : current;
+                    EquipmentIntervals next = indexed ? base.with(interval) : base.without(interval.getBookingId());
+                    return next.isEmpty() ? null : next;
+                });
+    }
+}
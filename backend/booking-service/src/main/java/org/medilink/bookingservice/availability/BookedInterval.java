@@ -0,0 +1,47 @@
+package org.medilink.bookingservice.availability;
+
+import org.medilink.bookingservice.model.Booking;
+import org.medilink.bookingservice.model.BookingStatus;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Immutable copy of the parts of a booking the availability index needs; inclusive on both ends
+public final class BookedInterval {
+
+    private final UUID bookingId;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final BookingStatus status;
+
+    public BookedInterval(UUID bookingId, LocalDate startDate, LocalDate endDate, BookingStatus status) {
+        this.bookingId = bookingId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.status = status;
+    }
+
+    public static BookedInterval of(Booking booking) {
+        return new BookedInterval(booking.getId(), booking.getStartDate(), booking.getEndDate(), booking.getStatus());
+    }
+
+    public UUID getBookingId() {
+        return bookingId;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public BookingStatus getStatus() {
+        return status;
+    }
+
+    public boolean overlaps(LocalDate start, LocalDate end) {
+        return !startDate.isAfter(end) && !endDate.isBefore(start);
+    }
+}
@@ -0,0 +1,106 @@
+package org.medilink.bookingservice.availability;
+
+import org.medilink.bookingservice.model.BookingStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Immutable interval index for one equipment: intervals sorted by start date plus the running maximum end date.
+// A query binary-searches the last interval starting on or before the window end and walks back only while the
+// running maximum still reaches the window start, so cost is O(log n + overlaps) for non-nested bookings.
+// Changes build a new instance; bookings change far less often than availability is asked for.
+final class EquipmentIntervals {
+
+    static final EquipmentIntervals EMPTY = new EquipmentIntervals(new BookedInterval[0]);
+
+    private static final Comparator<BookedInterval> BY_START = Comparator.comparing(BookedInterval::getStartDate)
+            .thenComparing(BookedInterval::getBookingId);
+
+    private final BookedInterval[] intervals;
+    private final LocalDate[] maxEndUpTo;
+
+    private EquipmentIntervals(BookedInterval[] sorted) {
+        this.intervals = sorted;
+        this.maxEndUpTo = new LocalDate[sorted.length];
+        LocalDate maxEnd = null;
+        for(int i = 0; i < sorted.length; i++){
+            if(maxEnd == null || sorted[i].getEndDate().isAfter(maxEnd)){
+                maxEnd = sorted[i].getEndDate();
+            }
+            maxEndUpTo[i] = maxEnd;
+        }
+    }
+
+    static EquipmentIntervals of(List<BookedInterval> intervals) {
+        BookedInterval[] sorted = intervals.toArray(new BookedInterval[0]);
+        Arrays.sort(sorted, BY_START);
+        return new EquipmentIntervals(sorted);
+    }
+
+    EquipmentIntervals with(BookedInterval interval) {
+        List<BookedInterval> next = new ArrayList<>(intervals.length + 1);
+        for(BookedInterval existing : intervals){
+            if(!existing.getBookingId().equals(interval.getBookingId())){
+                next.add(existing);
+            }
+        }
+        next.add(interval);
+        return of(next);
+    }
+
+    EquipmentIntervals without(UUID bookingId) {
+        List<BookedInterval> next = new ArrayList<>(intervals.length);
+        for(BookedInterval existing : intervals){
+            if(!existing.getBookingId().equals(bookingId)){
+                next.add(existing);
+            }
+        }
+        return next.size() == intervals.length ? this : of(next);
+    }
+
+    boolean isEmpty() {
+        return intervals.length == 0;
+    }
+
+    boolean anyOverlap(LocalDate start, LocalDate end, Set<BookingStatus> statuses) {
+        for(int i = lastStartingOnOrBefore(end); i >= 0 && !maxEndUpTo[i].isBefore(start); i--){
+            if(statuses.contains(intervals[i].getStatus()) && intervals[i].overlaps(start, end)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<BookedInterval> overlapping(LocalDate start, LocalDate end, Set<BookingStatus> statuses) {
+        List<BookedInterval> result = new ArrayList<>();
+        for(int i = lastStartingOnOrBefore(end); i >= 0 && !maxEndUpTo[i].isBefore(start); i--){
+            if(statuses.contains(intervals[i].getStatus()) && intervals[i].overlaps(start, end)){
+                result.add(intervals[i]);
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private int lastStartingOnOrBefore(LocalDate date) {
+        int low = 0;
+        int high = intervals.length - 1;
+        int found = -1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            if(intervals[mid].getStartDate().isAfter(date)){
+                high = mid - 1;
+            } else {
+                found = mid;
+                low = mid + 1;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,33 @@
+package org.medilink.bookingservice.catalog;
+
+import booking.events.EquipmentChangedEvent;
+
+// Booking-side copy of what equipment-service publishes about one unit
+public final class CatalogEntry {
+
+    private final Long equipmentId;
+    private final double price;
+    private final boolean deleted;
+
+    public CatalogEntry(Long equipmentId, double price, boolean deleted) {
+        this.equipmentId = equipmentId;
+        this.price = price;
+        this.deleted = deleted;
+    }
+
+    public static CatalogEntry of(EquipmentChangedEvent event) {
+        return new CatalogEntry(event.getEquipmentId(), event.getPrice(), event.getDeleted());
+    }
+
+    public Long getEquipmentId() {
+        return equipmentId;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,27 @@
+package org.medilink.bookingservice.catalog;
+
+import booking.events.EquipmentChangedEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory replica of the equipment catalog, fed by the compacted equipment-changes topic. Deleted units are
+// kept as entries so a late replay cannot resurrect them; an absent id only means the replica has not seen it yet.
+@Component
+public class EquipmentCatalog {
+
+    private final ConcurrentHashMap<Long, CatalogEntry> entries = new ConcurrentHashMap<>();
+
+    public void apply(EquipmentChangedEvent event) {
+        entries.put(event.getEquipmentId(), CatalogEntry.of(event));
+    }
+
+    public Optional<CatalogEntry> find(Long equipmentId) {
+        return Optional.ofNullable(entries.get(equipmentId));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
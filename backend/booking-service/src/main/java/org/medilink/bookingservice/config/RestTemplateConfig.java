@@ -1,14 +1,68 @@
 package org.medilink.bookingservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.medilink.bookingservice.deadline.DeadlineAwareRequestFactory;
+import org.medilink.bookingservice.outbound.OutboundCallInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class RestTemplateConfig {
 
+    // One shared pool of kept-alive connections for service-to-service calls. Everything is bounded: how
+    // long to connect, to wait for a response, and to wait for a free connection when the pool is exhausted,
+    // so a slow dependency costs a bounded amount of each Tomcat thread instead of pinning it.
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient outboundHttpClient(@Value("${outbound.http.max-connections:100}") int maxConnections,
+                                                  @Value("${outbound.http.max-connections-per-route:50}") int maxPerRoute,
+                                                  @Value("${outbound.http.connect-timeout:1s}") Duration connectTimeout,
+                                                  @Value("${outbound.http.connection-ttl:5m}") Duration connectionTtl,
+                                                  @Value("${outbound.http.idle-timeout:30s}") Duration idleTimeout,
+                                                  MeterRegistry meterRegistry){
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setTimeToLive(TimeValue.of(connectionTtl))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "booking-outbound").bindTo(meterRegistry);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                // retries are left to the caller; the breaker and deadline already bound failure handling
+                .disableAutomaticRetries()
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate(){
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient outboundHttpClient,
+                                     @Value("${outbound.http.read-timeout:3s}") Duration readTimeout,
+                                     @Value("${outbound.http.pool-wait-timeout:500ms}") Duration poolWaitTimeout,
+                                     @Value("${outbound.circuit-breaker.window-size:50}") int windowSize,
+                                     @Value("${outbound.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                                     @Value("${outbound.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                                     @Value("${outbound.circuit-breaker.open-duration:10s}") Duration openDuration,
+                                     MeterRegistry meterRegistry){
+        RestTemplate restTemplate = new RestTemplate(new DeadlineAwareRequestFactory(outboundHttpClient, readTimeout, poolWaitTimeout));
+        restTemplate.getInterceptors().add(new OutboundCallInterceptor(meterRegistry, windowSize, minimumCalls,
+                failureRateThreshold, openDuration.toMillis()));
+        return restTemplate;
     }
 }
@@ -1,15 +1,20 @@
 package org.medilink.bookingservice.controller;
 
+import org.medilink.bookingservice.dto.AvailabilityCalendarDTO;
 import org.medilink.bookingservice.model.Booking;
 import org.medilink.bookingservice.service.BookingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -20,9 +25,15 @@ public class BookingController {
     private static final Logger logger = LoggerFactory.getLogger(BookingController.class);
 
     private final BookingService bookingService;
+    private final int calendarMaxEquipments;
+    private final int calendarMaxDays;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService,
+                             @Value("${booking.calendar.max-equipments:200}") int calendarMaxEquipments,
+                             @Value("${booking.calendar.max-days:366}") int calendarMaxDays) {
         this.bookingService = bookingService;
+        this.calendarMaxEquipments = calendarMaxEquipments;
+        this.calendarMaxDays = calendarMaxDays;
     }
 
     @PostMapping
@@ -68,8 +79,41 @@ public class BookingController {
             @RequestParam LocalDate endDate
     ) {
         logger.info("Checking availability for equipment id: {} from {} to {}", equipmentId, startDate, endDate);
-        boolean conflict = bookingService.hasConflict(equipmentId, startDate, endDate);
-        logger.info("Availability check result: {}", conflict);
-        return ResponseEntity.ok(!conflict);
+        boolean available = bookingService.isAvailable(equipmentId, startDate, endDate);
+        logger.info("Availability check result: {}", available);
+        return ResponseEntity.ok(available);
+    }
+
+    // Availability of many equipments over a date window in one call, as per-day bitmaps
+    @GetMapping("/availability/calendar")
+    public ResponseEntity<AvailabilityCalendarDTO> availabilityCalendar(
+            @RequestParam List<Long> equipmentIds,
+            @RequestParam LocalDate from,
+            @RequestParam LocalDate to
+    ) {
+        LinkedHashSet<Long> ids = new LinkedHashSet<>(equipmentIds);
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if(ids.isEmpty() || ids.size() > calendarMaxEquipments || days < 1 || days > calendarMaxDays){
+            logger.warn("Rejecting availability calendar for {} equipments over {} days", ids.size(), days);
+            return ResponseEntity.badRequest().build();
+        }
+        Map<Long, String> available = bookingService.availabilityCalendar(ids, from, to);
+        return ResponseEntity.ok(new AvailabilityCalendarDTO(from, to, (int) days, available));
+    }
+
+    // Batch form of isAvailable for callers that filter a candidate list, e.g. equipment-service's available search
+    @GetMapping("/availability/busy")
+    public ResponseEntity<List<Long>> busyEquipment(
+            @RequestParam(required = false) List<Long> equipmentIds,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate
+    ) {
+        // an empty list would otherwise reach the repository as an empty IN () and fail as a 500
+        if(equipmentIds == null || equipmentIds.isEmpty() || equipmentIds.size() > calendarMaxEquipments
+                || endDate.isBefore(startDate)){
+            logger.warn("Rejecting busy-equipment check for {} equipments", equipmentIds == null ? 0 : equipmentIds.size());
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bookingService.busyEquipment(new LinkedHashSet<>(equipmentIds), startDate, endDate));
     }
 }
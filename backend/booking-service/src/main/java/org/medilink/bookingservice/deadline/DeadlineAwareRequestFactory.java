@@ -0,0 +1,41 @@
+package org.medilink.bookingservice.deadline;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.net.URI;
+import java.time.Duration;
+
+// Caps the response timeout and the wait for a pooled connection of each outbound call at whatever is left
+// of the current request's deadline. The connect timeout is fixed on the pool and is expected to be short.
+public class DeadlineAwareRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    private final long readTimeoutMillis;
+    private final long poolWaitMillis;
+
+    public DeadlineAwareRequestFactory(HttpClient httpClient, Duration readTimeout, Duration poolWait) {
+        super(httpClient);
+        this.readTimeoutMillis = readTimeout.toMillis();
+        this.poolWaitMillis = poolWait.toMillis();
+    }
+
+    @Override
+    protected HttpContext createHttpContext(HttpMethod httpMethod, URI uri) {
+        long budget = RequestDeadline.remainingMillis();
+        if (budget <= 0) {
+            throw new DeadlineExceededException("Request deadline exceeded before outbound call to " + uri);
+        }
+
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+                .setResponseTimeout(Timeout.ofMilliseconds(Math.min(readTimeoutMillis, budget)))
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(Math.min(poolWaitMillis, budget)))
+                .build());
+        return context;
+    }
+}
@@ -0,0 +1,41 @@
+package org.medilink.bookingservice.deadline;
+
+import java.util.concurrent.TimeUnit;
+
+// Holds the deadline of the request being served on the current thread. Requests without an
+// X-Request-Timeout header (and Kafka listener threads) have no deadline and are never cut short.
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    static void start(long budgetMillis) {
+        DEADLINE_NANOS.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis));
+    }
+
+    static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    public static boolean isSet() {
+        return DEADLINE_NANOS.get() != null;
+    }
+
+    public static long remainingMillis() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+
+    public static void check(String stage) {
+        if (remainingMillis() <= 0) {
+            throw new DeadlineExceededException("Request deadline exceeded before " + stage);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.medilink.bookingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// available maps each equipment id to a base64 bitmap of `days` bits, bit i (byte i / 8, bit i % 8, least
+// significant first) set when from + i days is free
+@Getter
+@AllArgsConstructor
+public class AvailabilityCalendarDTO {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int days;
+    private final Map<Long, String> available;
+}
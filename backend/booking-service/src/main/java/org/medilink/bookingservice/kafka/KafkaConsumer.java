@@ -1,19 +1,23 @@
 package org.medilink.bookingservice.kafka;
 
+import org.medilink.bookingservice.catalog.EquipmentCatalog;
 import org.medilink.bookingservice.model.Booking;
 
 import org.medilink.bookingservice.service.BookingService;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
+import booking.events.EquipmentChangedEvent;
 import booking.events.PaymentStatusEvent;
 
 @Service
 public class KafkaConsumer {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(KafkaConsumer.class);
     private final BookingService bookingService;
+    private final EquipmentCatalog equipmentCatalog;
 
-    public KafkaConsumer(BookingService bookingService) {
+    public KafkaConsumer(BookingService bookingService, EquipmentCatalog equipmentCatalog) {
         this.bookingService = bookingService;
+        this.equipmentCatalog = equipmentCatalog;
     }
 
     @KafkaListener(topics = "payment-status", groupId = "booking-service")
@@ -28,4 +32,19 @@ public class KafkaConsumer {
             throw new RuntimeException(e);
         }
     }
+
+    // Every instance keeps its own replica, so each gets its own group and replays the compacted topic on start
+    @KafkaListener(topics = "equipment-changes",
+            groupId = "#{'booking-service-catalog-' + T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=earliest")
+    public void consumeEquipmentChange(byte[] event){
+        try {
+            EquipmentChangedEvent changedEvent = EquipmentChangedEvent.parseFrom(event);
+            equipmentCatalog.apply(changedEvent);
+            logger.debug("Equipment catalog updated: {}", changedEvent);
+        } catch (Exception e) {
+            // a bad record only costs a remote lookup for that id; do not block the partition
+            logger.error("Error processing equipment change event", e);
+        }
+    }
 }
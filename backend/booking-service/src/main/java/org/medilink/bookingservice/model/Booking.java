@@ -12,7 +12,10 @@ import java.util.UUID;
 @Setter
 @Entity
 @NoArgsConstructor
-@Table(name = "bookings")
+// conflict checks filter on equipment and status, then range-scan the dates
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_equipment_status_dates", columnList = "equipment_id, status, start_date, end_date")
+})
 public class Booking {
 
      @Id
@@ -0,0 +1,92 @@
+package org.medilink.bookingservice.outbound;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.medilink.bookingservice.deadline.DeadlineExceededException;
+import org.medilink.bookingservice.deadline.RequestDeadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times every outbound call per target host and guards each target with its own circuit breaker. Timeouts,
+// connection errors and 5xx count as failures; 4xx is the caller's problem and counts as a success.
+public class OutboundCallInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundCallInterceptor.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public OutboundCallInterceptor(MeterRegistry meterRegistry, int windowSize, int minimumCalls,
+                                   double failureRateThreshold, long openMillis) {
+        this.meterRegistry = meterRegistry;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String target = request.getURI().getHost();
+        CircuitBreaker breaker = breakers.computeIfAbsent(target, this::newBreaker);
+        if (!breaker.tryAcquire()) {
+            meterRegistry.counter("booking.outbound.rejected", "target", target).increment();
+            throw new CircuitOpenException("Circuit open for " + target);
+        }
+
+        long start = System.nanoTime();
+        String outcome = "io_error";
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getStatusCode().value();
+            outcome = status >= 500 ? "server_error" : status >= 400 ? "client_error" : "success";
+            if (status >= 500) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            // running out of our own request's budget says nothing about the target's health
+            if (e instanceof DeadlineExceededException || RequestDeadline.remainingMillis() <= 0) {
+                outcome = "deadline";
+                breaker.onIgnored();
+            } else {
+                breaker.onFailure();
+            }
+            throw e;
+        } finally {
+            Timer.builder("booking.outbound.latency")
+                    .tag("target", target)
+                    .tag("method", request.getMethod().name())
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private CircuitBreaker newBreaker(String target) {
+        CircuitBreaker breaker = new CircuitBreaker(target, windowSize, minimumCalls, failureRateThreshold, openMillis);
+        // 0 closed, 1 open, 2 half-open
+        Gauge.builder("booking.outbound.circuit.state", breaker, b -> b.getState().ordinal())
+                .tag("target", target)
+                .register(meterRegistry);
+        logger.info("Circuit breaker created for outbound target {}", target);
+        return breaker;
+    }
+}
@@ -0,0 +1,10 @@
+package org.medilink.bookingservice.repository;
+
+import java.time.LocalDate;
+
+// Projection for availability scans: three columns instead of whole Booking entities
+public interface BookedRange {
+    Long getEquipmentId();
+    LocalDate getStartDate();
+    LocalDate getEndDate();
+}
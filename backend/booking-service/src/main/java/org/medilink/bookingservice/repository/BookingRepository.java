@@ -2,7 +2,13 @@ package org.medilink.bookingservice.repository;
 
 import org.medilink.bookingservice.model.Booking;
 import org.medilink.bookingservice.model.BookingStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +18,26 @@ public interface BookingRepository extends JpaRepository<Booking,UUID> {
     Optional<Booking> findById(UUID id);
     List<Booking> findByUserId(UUID userId);
     List<Booking> findByEquipmentIdAndStatus(Long equipmentId, BookingStatus status);
+
+    List<BookedRange> findByEquipmentIdInAndStatusAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+            Collection<Long> equipmentIds, BookingStatus status, LocalDate windowEnd, LocalDate windowStart);
+
+    @Query("select distinct b.equipmentId from Booking b where b.equipmentId in :equipmentIds and b.status = :status " +
+            "and b.startDate <= :endDate and b.endDate >= :startDate")
+    List<Long> findEquipmentIdsWithOverlap(@Param("equipmentIds") Collection<Long> equipmentIds,
+                                           @Param("status") BookingStatus status,
+                                           @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    List<Booking> findByStatusInAndEndDateGreaterThanEqual(Collection<BookingStatus> statuses, LocalDate endDate);
+
+    // Inclusive date ranges overlap when each starts on or before the other ends. Served by
+    // idx_bookings_equipment_status_dates and stops at the first match.
+    boolean existsByEquipmentIdAndStatusAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+            Long equipmentId, BookingStatus status, LocalDate endDate, LocalDate startDate);
+
+    @Query("select b.id from Booking b where b.equipmentId = :equipmentId and b.status = :status " +
+            "and b.startDate <= :endDate and b.endDate >= :startDate order by b.startDate")
+    List<UUID> findOverlappingIds(@Param("equipmentId") Long equipmentId, @Param("status") BookingStatus status,
+                                  @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                                  Pageable pageable);
 }
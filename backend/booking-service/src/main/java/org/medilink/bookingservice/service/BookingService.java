@@ -1,55 +1,215 @@
 package org.medilink.bookingservice.service;
 
+import org.medilink.bookingservice.availability.AvailabilityIndex;
+import org.medilink.bookingservice.availability.BookedInterval;
+import org.medilink.bookingservice.catalog.CatalogEntry;
+import org.medilink.bookingservice.catalog.EquipmentCatalog;
+import org.medilink.bookingservice.deadline.DeadlineExceededException;
+import org.medilink.bookingservice.deadline.RequestDeadline;
 import org.medilink.bookingservice.kafka.KafkaProducer;
 import org.medilink.bookingservice.model.Booking;
 import org.medilink.bookingservice.model.BookingStatus;
+import org.medilink.bookingservice.repository.BookedRange;
 import org.medilink.bookingservice.repository.BookingRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import booking.events.PaymentStatusEvent;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 public class BookingService {
     private static final Logger logger = LoggerFactory.getLogger(BookingService.class);
+    private static final Set<BookingStatus> BLOCKING = AvailabilityIndex.statuses(BookingStatus.CONFIRMED);
     private final BookingRepository bookingRepository;
     private final KafkaProducer kafkaProducer;
     private final RestTemplate restTemplate;
     private final String equipmentServiceUrl;
+    private final PlatformTransactionManager transactionManager;
+    private final AvailabilityIndex availabilityIndex;
+    private final EquipmentCatalog equipmentCatalog;
+    private final boolean catalogRemoteFallback;
 
-    public BookingService(BookingRepository bookingRepository, RestTemplate restTemplate,  @Value( "${equipment.service.url}")  String equipmentServiceUrl, KafkaProducer kafkaProducer) {
+    public BookingService(BookingRepository bookingRepository, RestTemplate restTemplate,  @Value( "${equipment.service.url}")  String equipmentServiceUrl, KafkaProducer kafkaProducer, PlatformTransactionManager transactionManager, AvailabilityIndex availabilityIndex,
+                          EquipmentCatalog equipmentCatalog, @Value("${booking.equipment-catalog.remote-fallback:true}") boolean catalogRemoteFallback) {
         this.bookingRepository = bookingRepository;
         this.restTemplate = restTemplate;
         this.equipmentServiceUrl = equipmentServiceUrl;
         this.kafkaProducer = kafkaProducer;
+        this.transactionManager = transactionManager;
+        this.availabilityIndex = availabilityIndex;
+        this.equipmentCatalog = equipmentCatalog;
+        this.catalogRemoteFallback = catalogRemoteFallback;
     }
 
     public Booking createBooking(Booking booking, UUID userId){
-        ResponseEntity<?> equipmentResponse = restTemplate.getForEntity(equipmentServiceUrl + "/" + booking.getEquipmentId(), Object.class);
+        // early rejection before the equipment lookup; the index may still hold a booking that another instance
+        // has cancelled, so a hit is only a hint and is confirmed against the database first
+        if(availabilityIndex.hasOverlap(booking.getEquipmentId(), booking.getStartDate(), booking.getEndDate(), BLOCKING)
+                .orElse(false)
+                && withinDeadline(() -> hasConflict(booking.getEquipmentId(), booking.getStartDate(), booking.getEndDate()))){
+            throw new IllegalArgumentException("Booking Conflict is detected");
+        }
 
-        if(!equipmentResponse.getStatusCode().is2xxSuccessful()){
+        if(!equipmentExists(booking.getEquipmentId())){
             throw new IllegalArgumentException("Invalid equipment id");
         }
 
-        if(hasConflict(booking.getEquipmentId(), booking.getStartDate(), booking.getEndDate())){
-            throw new IllegalArgumentException("Booking Conflict is detected");
-        }
+        RequestDeadline.check("saving booking");
+        Booking savedBooking = withinDeadline(() -> {
+            Optional<UUID> conflict = findFirstConflict(booking.getEquipmentId(), booking.getStartDate(), booking.getEndDate());
+            if(conflict.isPresent()){
+                logger.info("Booking for equipment {} conflicts with booking {}", booking.getEquipmentId(), conflict.get());
+                throw new IllegalArgumentException("Booking Conflict is detected");
+            }
 
-        booking.setUserId(userId);
-        booking.setStatus(BookingStatus.PENDING);
-        Booking savedBooking = bookingRepository.save(booking);
+            booking.setUserId(userId);
+            booking.setStatus(BookingStatus.PENDING);
+            return bookingRepository.save(booking);
+        });
+        availabilityIndex.onBookingChanged(savedBooking);
         kafkaProducer.sendEventToPaymentService(savedBooking);
         return savedBooking;
     }
 
+    // Answered from the local catalog replica; equipment-service is only asked about ids the replica has not seen
+    private boolean equipmentExists(Long equipmentId){
+        Optional<CatalogEntry> entry = equipmentCatalog.find(equipmentId);
+        if(entry.isPresent()){
+            return !entry.get().isDeleted();
+        }
+        if(!catalogRemoteFallback){
+            return false;
+        }
+
+        logger.info("Equipment {} not in catalog replica, asking equipment-service", equipmentId);
+        RequestDeadline.check("equipment lookup");
+        ResponseEntity<?> equipmentResponse;
+        try{
+            equipmentResponse = restTemplate.getForEntity(equipmentServiceUrl + "/" + equipmentId, Object.class);
+        } catch(ResourceAccessException e){
+            if(RequestDeadline.remainingMillis() <= 0){
+                throw new DeadlineExceededException("Request deadline exceeded during equipment lookup", e);
+            }
+            throw e;
+        }
+        return equipmentResponse.getStatusCode().is2xxSuccessful();
+    }
+
+    public boolean isAvailable(Long equipmentId, LocalDate startDate, LocalDate endDate){
+        Optional<Boolean> indexed = availabilityIndex.hasOverlap(equipmentId, startDate, endDate, BLOCKING);
+        if(indexed.isPresent()){
+            return !indexed.get();
+        }
+        RequestDeadline.check("availability check");
+        return !withinDeadline(() -> hasConflict(equipmentId, startDate, endDate));
+    }
+
+    // Which of the given equipments already have a blocking booking in [startDate, endDate]. Answered from the
+    // availability index when it covers the window, so bookings made through another instance can be missing
+    // (and cancelled ones still present) for up to booking.availability-index.refresh-interval, 5 minutes by
+    // default. Fine for search results; createBooking re-checks against the database.
+    public List<Long> busyEquipment(Collection<Long> equipmentIds, LocalDate startDate, LocalDate endDate){
+        if(availabilityIndex.covers(startDate)){
+            List<Long> busy = new ArrayList<>();
+            for(Long equipmentId : equipmentIds){
+                if(availabilityIndex.hasOverlap(equipmentId, startDate, endDate, BLOCKING).orElse(false)){
+                    busy.add(equipmentId);
+                }
+            }
+            return busy;
+        }
+        RequestDeadline.check("availability check");
+        return withinDeadline(() -> bookingRepository.findEquipmentIdsWithOverlap(equipmentIds, BookingStatus.CONFIRMED,
+                startDate, endDate));
+    }
+
+    // One bitmap per equipment, a bit per day of [from, to], starting all free and cleared by each booking that
+    // overlaps the window. Served from the availability index when it covers the window, otherwise from a single
+    // query over all requested equipments. Like busyEquipment, index answers may lag changes made through other
+    // instances by up to the index refresh interval (5 minutes by default).
+    public Map<Long, String> availabilityCalendar(Collection<Long> equipmentIds, LocalDate from, LocalDate to){
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        Map<Long, byte[]> bitmaps = new LinkedHashMap<>();
+        for(Long equipmentId : equipmentIds){
+            bitmaps.put(equipmentId, allFree(days));
+        }
+
+        if(availabilityIndex.covers(from)){
+            for(Map.Entry<Long, byte[]> entry : bitmaps.entrySet()){
+                for(BookedInterval interval : availabilityIndex.overlapping(entry.getKey(), from, to, BLOCKING)){
+                    clearDays(entry.getValue(), from, days, interval.getStartDate(), interval.getEndDate());
+                }
+            }
+        } else {
+            RequestDeadline.check("availability calendar");
+            List<BookedRange> ranges = withinDeadline(() -> bookingRepository
+                    .findByEquipmentIdInAndStatusAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                            equipmentIds, BookingStatus.CONFIRMED, to, from));
+            for(BookedRange range : ranges){
+                clearDays(bitmaps.get(range.getEquipmentId()), from, days, range.getStartDate(), range.getEndDate());
+            }
+        }
+
+        Map<Long, String> encoded = new LinkedHashMap<>();
+        for(Map.Entry<Long, byte[]> entry : bitmaps.entrySet()){
+            encoded.put(entry.getKey(), Base64.getEncoder().encodeToString(entry.getValue()));
+        }
+        return encoded;
+    }
+
+    private static byte[] allFree(int days){
+        byte[] bitmap = new byte[(days + 7) / 8];
+        for(int day = 0; day < days; day++){
+            bitmap[day >>> 3] |= (byte) (1 << (day & 7));
+        }
+        return bitmap;
+    }
+
+    private static void clearDays(byte[] bitmap, LocalDate from, int days, LocalDate start, LocalDate end){
+        int first = (int) Math.max(0, ChronoUnit.DAYS.between(from, start));
+        int last = (int) Math.min(days - 1, ChronoUnit.DAYS.between(from, end));
+        for(int day = first; day <= last; day++){
+            bitmap[day >>> 3] &= (byte) ~(1 << (day & 7));
+        }
+    }
+
+    // Runs DB work in a transaction whose timeout is what is left of the request deadline, so queries are
+    // cancelled by the driver instead of finishing for a caller that has already gone
+    private <T> T withinDeadline(Supplier<T> work){
+        if(!RequestDeadline.isSet()){
+            return work.get();
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setTimeout((int) Math.max(1, (RequestDeadline.remainingMillis() + 999) / 1000));
+        try{
+            return transactionTemplate.execute(status -> work.get());
+        } catch(TransactionTimedOutException | QueryTimeoutException e){
+            throw new DeadlineExceededException("Request deadline exceeded during database work", e);
+        }
+    }
+
     public List<Booking> getBookingsByUserId(UUID userId){
         return bookingRepository.findByUserId(userId);
     }
@@ -62,6 +222,7 @@ public class BookingService {
         }
         booking.setStatus(BookingStatus.CANCELLED);
         bookingRepository.saveAndFlush(booking);
+        availabilityIndex.onBookingChanged(booking);
     }
 
     public void confirmBooking(UUID id, UUID userId){
@@ -72,16 +233,18 @@ public class BookingService {
         }
         booking.setStatus(BookingStatus.CONFIRMED);
         bookingRepository.saveAndFlush(booking);
+        availabilityIndex.onBookingChanged(booking);
     }
 
     public boolean hasConflict(Long equipmentId, LocalDate startDate, LocalDate endDate){
-        List<Booking> existingList = bookingRepository.findByEquipmentIdAndStatus(equipmentId, BookingStatus.CONFIRMED);
-        for(Booking booking: existingList){
-            if(!(endDate.isBefore(booking.getStartDate()) || startDate.isAfter(booking.getEndDate()))){
-                return true;
-            }
-        }
-        return false;
+        return bookingRepository.existsByEquipmentIdAndStatusAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                equipmentId, BookingStatus.CONFIRMED, endDate, startDate);
+    }
+
+    public Optional<UUID> findFirstConflict(Long equipmentId, LocalDate startDate, LocalDate endDate){
+        List<UUID> ids = bookingRepository.findOverlappingIds(equipmentId, BookingStatus.CONFIRMED, startDate, endDate,
+                PageRequest.of(0, 1));
+        return ids.isEmpty() ? Optional.<UUID>empty() : Optional.of(ids.get(0));
     }
 
     public Optional<Booking> getById(UUID id){
@@ -105,6 +268,7 @@ public class BookingService {
                 }
                 kafkaProducer.sendEventToEquipmentService(booking);
                 bookingRepository.saveAndFlush(booking);
+                availabilityIndex.onBookingChanged(booking);
                 logger.info("Booking status updated for booking id: {}", bookingId);
             } else {
                 logger.warn("Booking not found for booking id: {}", bookingId);
@@ -0,0 +1,44 @@
+package org.medilink.equipmentservice.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+public class BookingClient {
+
+    private static final ParameterizedTypeReference<List<Long>> ID_LIST = new ParameterizedTypeReference<>() {};
+
+    private final RestTemplate restTemplate;
+    private final String bookingServiceUrl;
+
+    public BookingClient(RestTemplate restTemplate,
+                         @Value("${booking.service.url:http://booking-service:4003}") String bookingServiceUrl) {
+        this.restTemplate = restTemplate;
+        this.bookingServiceUrl = bookingServiceUrl;
+    }
+
+    // One call for a whole batch of candidates instead of one availability check per equipment
+    public Set<Long> busyEquipment(Collection<Long> equipmentIds, LocalDate startDate, LocalDate endDate) {
+        URI uri = UriComponentsBuilder.fromUriString(bookingServiceUrl)
+                .path("/bookings/availability/busy")
+                .queryParam("equipmentIds", equipmentIds.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .queryParam("startDate", startDate)
+                .queryParam("endDate", endDate)
+                .build()
+                .toUri();
+        List<Long> busy = restTemplate.exchange(uri, HttpMethod.GET, null, ID_LIST).getBody();
+        return busy == null ? Set.of() : new HashSet<>(busy);
+    }
+}
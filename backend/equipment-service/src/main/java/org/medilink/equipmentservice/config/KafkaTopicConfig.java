@@ -0,0 +1,19 @@
+package org.medilink.equipmentservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.medilink.equipmentservice.kafka.KafkaProducer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    @Bean
+    public NewTopic equipmentTopic(){
+        return TopicBuilder.name(KafkaProducer.EQUIPMENT_TOPIC)
+                .partitions(1)
+                .compact()
+                .build();
+    }
+}
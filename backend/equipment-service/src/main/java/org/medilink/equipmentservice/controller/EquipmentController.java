@@ -2,15 +2,18 @@ package org.medilink.equipmentservice.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.medilink.equipmentservice.dto.AvailableEquipmentPageDTO;
 import org.medilink.equipmentservice.model.Equipment;
 import org.medilink.equipmentservice.service.EquipmentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -81,4 +84,24 @@ public class EquipmentController {
         List<Equipment> equipmentList = equipmentService.searchEquipment(type, location, availability);
         return new ResponseEntity<>(equipmentList, HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/available")
+    @Operation(summary = "Cheapest equipments of a type in a location that are free for a date range, paginated by cursor")
+    public ResponseEntity<AvailableEquipmentPageDTO> findAvailable(@RequestParam String type, @RequestParam String location,
+                                                                   @RequestParam LocalDate startDate, @RequestParam LocalDate endDate,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(defaultValue = "20") int size) {
+        if(endDate.isBefore(startDate) || size < 1 || size > 100){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try{
+            // availability changes with every booking, so shared caches must not keep it
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(equipmentService.findAvailable(type, location, startDate, endDate, cursor, size));
+        } catch(IllegalArgumentException e){
+            logger.warn("Rejecting available search: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+}
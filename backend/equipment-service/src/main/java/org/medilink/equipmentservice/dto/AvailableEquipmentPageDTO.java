@@ -0,0 +1,15 @@
+package org.medilink.equipmentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.medilink.equipmentservice.model.Equipment;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class AvailableEquipmentPageDTO {
+    private List<Equipment> items;
+    // pass back as `cursor` for the next page; null when the catalog is exhausted
+    private String nextCursor;
+}
@@ -0,0 +1,48 @@
+package org.medilink.equipmentservice.kafka;
+
+import equipment.events.EquipmentChangedEvent;
+import org.medilink.equipmentservice.model.Equipment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class KafkaProducer {
+    private static final Logger logger = LoggerFactory.getLogger(KafkaProducer.class);
+
+    // compacted and keyed by equipment id, so replaying it from the start yields the current catalog
+    public static final String EQUIPMENT_TOPIC = "equipment-changes";
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public void sendEquipmentChanged(Equipment equipment){
+        EquipmentChangedEvent event = EquipmentChangedEvent.newBuilder()
+                .setEquipmentId(equipment.getId())
+                .setType(equipment.getType())
+                .setLocation(equipment.getLocation())
+                .setPrice(equipment.getPrice())
+                .build();
+        send(event);
+    }
+
+    // an explicit deleted marker rather than a null tombstone, so the removal survives compaction
+    public void sendEquipmentDeleted(Long id){
+        send(EquipmentChangedEvent.newBuilder()
+                .setEquipmentId(id)
+                .setDeleted(true)
+                .build());
+    }
+
+    private void send(EquipmentChangedEvent event){
+        try{
+            kafkaTemplate.send(EQUIPMENT_TOPIC, Long.toString(event.getEquipmentId()), event.toByteArray());
+        } catch(Exception e){
+            logger.error("Error sending EquipmentChanged event: {}", event, e);
+        }
+    }
+}
@@ -9,7 +9,10 @@ import lombok.NoArgsConstructor;
 @Entity
 @Data
 @NoArgsConstructor
-@Table(name = "equipment")
+// catalog searches filter on type and location and page through the result by price
+@Table(name = "equipment", indexes = {
+        @Index(name = "idx_equipment_type_location_price", columnList = "type, location, price, id")
+})
 public class Equipment {
 
     @Id
@@ -1,7 +1,10 @@
 package org.medilink.equipmentservice.repository;
 
 import org.medilink.equipmentservice.model.Equipment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +12,11 @@ import java.util.List;
 @Repository
 public interface EquipmentRepository extends JpaRepository<Equipment, Long> {
    List<Equipment> findByTypeAndLocationAndAvailability(String type, String location, Boolean availability);
+
+   // Keyset page over (price, id), read straight off idx_equipment_type_location_price
+   @Query("select e from Equipment e where e.type = :type and e.location = :location and e.availability = true " +
+           "and (e.price > :afterPrice or (e.price = :afterPrice and e.id > :afterId)) order by e.price, e.id")
+   List<Equipment> findInServiceAfter(@Param("type") String type, @Param("location") String location,
+                                      @Param("afterPrice") Double afterPrice, @Param("afterId") Long afterId,
+                                      Pageable pageable);
 }
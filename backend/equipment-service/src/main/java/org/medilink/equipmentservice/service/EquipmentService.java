@@ -1,15 +1,25 @@
 package org.medilink.equipmentservice.service;
 
 import equipment.events.BookingStatusEvent;
+import org.medilink.equipmentservice.client.BookingClient;
+import org.medilink.equipmentservice.dto.AvailableEquipmentPageDTO;
+import org.medilink.equipmentservice.kafka.KafkaProducer;
 import org.medilink.equipmentservice.model.Equipment;
 import org.medilink.equipmentservice.repository.EquipmentRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class EquipmentService {
@@ -19,10 +29,24 @@ public class EquipmentService {
     @Autowired
     private EquipmentRepository equipmentRepository;
 
+    @Autowired
+    private BookingClient bookingClient;
+
+    @Autowired
+    private KafkaProducer kafkaProducer;
+
+    // candidates examined per booking-service round trip, and how many of those one request may spend
+    @Value("${equipment.available-search.batch-size:100}")
+    private int searchBatchSize;
+
+    @Value("${equipment.available-search.max-batches:10}")
+    private int searchMaxBatches;
+
     public Equipment addEquipment(Equipment equipment) {
         logger.info("Adding new equipment: {}", equipment.getName());
         Equipment savedEquipment = equipmentRepository.save(equipment);
         logger.info("Equipment added successfully with id: {}", savedEquipment.getId());
+        kafkaProducer.sendEquipmentChanged(savedEquipment);
         return savedEquipment;
     }
 
@@ -46,6 +70,7 @@ public class EquipmentService {
             equipment.setPrice(updatedEquipment.getPrice());
             Equipment savedEquipment = equipmentRepository.save(equipment);
             logger.info("Equipment updated successfully with id: {}", savedEquipment.getId());
+            kafkaProducer.sendEquipmentChanged(savedEquipment);
             return savedEquipment;
         }).orElseThrow(() -> {
             logger.error("Equipment not found with id: {}", id);
@@ -58,10 +83,68 @@ public class EquipmentService {
         return equipmentRepository.findByTypeAndLocationAndAvailability(type, location, availability);
     }
 
+    // Cheapest in-service units of a type in a location that are free for the whole window. Walks the
+    // (type, location, price, id) index in batches and filters each batch with one booking-service call,
+    // stopping once the page is full. The cursor is the (price, id) of the last unit examined.
+    public AvailableEquipmentPageDTO findAvailable(String type, String location, LocalDate startDate, LocalDate endDate,
+                                                   String cursor, int size) {
+        double afterPrice = -1;
+        long afterId = 0;
+        if(cursor != null && !cursor.isBlank()){
+            String[] parts = cursor.split(":", 2);
+            if(parts.length != 2){
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            afterPrice = Double.parseDouble(parts[0]);
+            afterId = Long.parseLong(parts[1]);
+        }
+
+        List<Equipment> page = new ArrayList<>(size);
+        boolean exhausted = false;
+        for(int batch = 0; batch < searchMaxBatches && page.size() < size; batch++){
+            List<Equipment> candidates = equipmentRepository.findInServiceAfter(type, location, afterPrice, afterId,
+                    PageRequest.of(0, Math.max(size, searchBatchSize)));
+            if(candidates.isEmpty()){
+                exhausted = true;
+                break;
+            }
+
+            Set<Long> busy = bookingClient.busyEquipment(candidates.stream().map(Equipment::getId).toList(),
+                    startDate, endDate);
+            for(Equipment candidate : candidates){
+                afterPrice = candidate.getPrice();
+                afterId = candidate.getId();
+                if(!busy.contains(candidate.getId())){
+                    page.add(candidate);
+                    if(page.size() == size){
+                        break;
+                    }
+                }
+            }
+            if(candidates.size() < Math.max(size, searchBatchSize) && page.size() < size){
+                exhausted = true;
+                break;
+            }
+        }
+
+        logger.info("Available search for {} in {}: {} results", type, location, page.size());
+        return new AvailableEquipmentPageDTO(page, exhausted ? null : afterPrice + ":" + afterId);
+    }
+
     public void deleteEquipment(Long id) {
         logger.info("Deleting equipment with id: {}", id);
         equipmentRepository.deleteById(id);
         logger.info("Equipment deleted successfully with id: {}", id);
+        kafkaProducer.sendEquipmentDeleted(id);
+    }
+
+    // Snapshot of the whole catalog into the compacted topic, so rows written before it existed (or while
+    // publishing failed) still reach the replicas in other services
+    @EventListener(ApplicationReadyEvent.class)
+    public void publishCatalogSnapshot() {
+        List<Equipment> catalog = equipmentRepository.findAll();
+        catalog.forEach(kafkaProducer::sendEquipmentChanged);
+        logger.info("Published catalog snapshot of {} equipments", catalog.size());
     }
 
     public void updateEquipmentAvailability(BookingStatusEvent bookingStatusEvent){
@@ -11,6 +11,7 @@ import software.amazon.awscdk.services.logs.RetentionDays;
 import software.amazon.awscdk.services.msk.CfnCluster;
 import software.amazon.awscdk.services.rds.*;
 import software.amazon.awscdk.services.route53.CfnHealthCheck;
+import software.amazon.awscdk.services.secretsmanager.Secret;
 
 import java.util.HashMap;
 import java.util.List;
@@ -43,10 +44,13 @@ public class LocalStack extends Stack {
                 "auth-service",
                 List.of(4005),
                 authServiceDb,
-                Map.of("JWT_SECRET", "Y2hhVEc3aHjnb0hYTzMyZ2ZqVkpiZ1RkZG93YWxrUkM="));
+                // the key that encrypts signing keys at rest lives in Secrets Manager, not in this repository
+                Map.of("JWT_KEYS_ENCRYPTION_KEY", Secret.fromSecretNameV2(this, "JwtKeysEncryptionKey",
+                        "medilink/jwt-keys-encryption-key").getSecretValue().toString()));
 
         authService.getNode().addDependency(authServiceDbHealthCheck);
         authService.getNode().addDependency(authServiceDb);
+        authService.getNode().addDependency(mskCluster);
 
         //EquipmentService task
         FargateService equipmentService = createFargateService("EquipmentService",
@@ -179,7 +183,8 @@ public class LocalStack extends Stack {
         }
 
         if(db !=null){
-            envVars.put("SPRING_DATASOURCE_URL", "jdbc:postgresql://%s:%s/%s-db".formatted(
+            // reWriteBatchedInserts lets the driver send JDBC batches as multi-row inserts
+            envVars.put("SPRING_DATASOURCE_URL", "jdbc:postgresql://%s:%s/%s-db?reWriteBatchedInserts=true".formatted(
                     db.getDbInstanceEndpointAddress(),
                     db.getDbInstanceEndpointPort(),
                     imageName
@@ -212,7 +217,8 @@ public class LocalStack extends Stack {
                         .image(ContainerImage.fromRegistry("api-gateway"))
                         .environment(Map.of(
                                 "SPRING_PROFILES_ACTIVE", "prod",
-                                "AUTH_SERVICE_URL", "https://host.docker.internal:4005"
+                                "AUTH_SERVICE_URL", "https://host.docker.internal:4005",
+                                "SPRING_KAFKA_BOOTSTRAP_SERVERS", "localhost.localstack.cloud:4510, localhost.localstack.cloud:4511, localhost.localstack.cloud:4512"
                         ))
                         .portMappings(List.of(4004).stream()
                                 .map(port -> PortMapping.builder()
@@ -43,6 +43,9 @@ export const updateEquipment = (id, equipment) => api.put(`/api/equipments/${id}
 export const deleteEquipment = (id) => api.delete(`/api/equipments/${id}`);
 export const searchEquipment = (type, location, availability) =>
   api.get('/api/equipments/search', { params: { type, location, availability } });
+// cheapest free units first; pass the returned nextCursor to get the next page (null when there are no more)
+export const findAvailableEquipment = (type, location, startDate, endDate, cursor, size = 20) =>
+  api.get('/api/equipments/available', { params: { type, location, startDate, endDate, cursor, size } });
 
 export const createBooking = (booking) => api.post('/api/bookings', booking);
 // export const getAllBookings = () => api.get('/bookings');
@@ -50,6 +53,16 @@ export const getBookingById = (id) => api.get(`/api/bookings/${id}`);
 export const updateBooking = (id, booking) => api.put(`/api/bookings/${id}`, booking);
 export const deleteBooking = (id) => api.delete(`/api/bookings/${id}`);
 export const confirmBooking = (id) => api.post(`/api/bookings/${id}/confirm`);
+// booking + equipment + payment in one call; equipment/payment are null (and listed in `unavailable`) if they timed out
+export const getBookingDetails = (id) => api.get(`/api/booking-details/${id}`);
+// per-day availability for many equipments at once: { from, to, days, available: { [equipmentId]: base64 bitmap } },
+// bit i (byte i >> 3, bit i & 7) set when from + i days is free
+export const getAvailabilityCalendar = (equipmentIds, from, to) =>
+  api.get('/api/bookings/availability/calendar', { params: { equipmentIds: equipmentIds.join(','), from, to } });
+export const isDayAvailable = (bitmap, day) => {
+  const bytes = atob(bitmap);
+  return ((bytes.charCodeAt(day >> 3) >> (day & 7)) & 1) === 1;
+};
 // export const completeBooking = (id) => api.post(`/bookings/${id}/complete`);
 
 // Payment related constants